@@ -0,0 +1,178 @@
+import java.util.function.IntSupplier;
+
+/**
+ * Workloads for the JMH benchmarks.
+ *
+ * JMH only accepts benchmark classes in a named package, and a named package
+ * cannot refer to the default-package core classes. This class sits in the
+ * default package next to them and hands each workload to the benchmarks
+ * (package bench) as an IntSupplier; see bench.Targets.
+ */
+public class BenchTargets{
+
+	//values cycled through the containers; Integer.valueOf caches -128..127,
+	//so most adds box a fresh Integer just like real numeric use would
+	private static int next = 1000;
+
+	//******************************************************
+	//*******               DynArr310                *******
+	//******************************************************
+
+	//append n items to an empty array
+	public static IntSupplier dynArrAdd(int n){
+		return () -> {
+			DynArr310<Integer> arr = new DynArr310<>();
+			for (int i=0; i<n; i++)
+				arr.add(next++);
+			return arr.size();
+		};
+	}
+
+	//append n items to an empty IntDynArr310 (no boxing)
+	public static IntSupplier intDynArrAdd(int n){
+		return () -> {
+			IntDynArr310 arr = new IntDynArr310();
+			for (int i=0; i<n; i++)
+				arr.add(next++);
+			return arr.size();
+		};
+	}
+
+	//append n items to an empty LongDynArr310 (no boxing)
+	public static IntSupplier longDynArrAdd(int n){
+		return () -> {
+			LongDynArr310 arr = new LongDynArr310();
+			for (int i=0; i<n; i++)
+				arr.add(next++);
+			return arr.size();
+		};
+	}
+
+	//append n items to an empty ByteDynArr310 (no boxing)
+	public static IntSupplier byteDynArrAdd(int n){
+		return () -> {
+			ByteDynArr310 arr = new ByteDynArr310();
+			for (int i=0; i<n; i++)
+				arr.add((byte)next++);
+			return arr.size();
+		};
+	}
+
+	//insert n items, each at the middle of the array
+	public static IntSupplier dynArrInsert(int n){
+		return () -> {
+			DynArr310<Integer> arr = new DynArr310<>();
+			for (int i=0; i<n; i++)
+				arr.insert(arr.size()/2, next++);
+			return arr.size();
+		};
+	}
+
+	//append n items, then remove them all from the front
+	public static IntSupplier dynArrAddRemove(int n){
+		return () -> {
+			DynArr310<Integer> arr = new DynArr310<>();
+			for (int i=0; i<n; i++)
+				arr.add(next++);
+			int sum = 0;
+			while (arr.size() > 0)
+				sum += arr.remove(0);
+			return sum;
+		};
+	}
+
+	//******************************************************
+	//*******               DynGrid310               *******
+	//******************************************************
+
+	private static DynArr310<Integer> line(int n){
+		DynArr310<Integer> arr = new DynArr310<>();
+		for (int i=0; i<n; i++)
+			arr.add(next++);
+		return arr;
+	}
+
+	private static DynGrid310<Integer> square(int n){
+		DynGrid310<Integer> grid = new DynGrid310<>();
+		for (int row=0; row<n; row++)
+			grid.addRow(row, line(n));
+		return grid;
+	}
+
+	//read every cell of an n x n grid
+	public static IntSupplier dynGridGet(int n){
+		DynGrid310<Integer> grid = square(n);
+		return () -> {
+			int sum = 0;
+			for (int row=0; row<n; row++)
+				for (int col=0; col<n; col++)
+					sum += grid.get(row, col);
+			return sum;
+		};
+	}
+
+	//build an n x n grid one appended row at a time
+	public static IntSupplier dynGridAddRow(int n){
+		return () -> square(n).getNumRow();
+	}
+
+	//build an n x n grid one column at a time, each inserted at the front
+	public static IntSupplier dynGridAddCol(int n){
+		return () -> {
+			DynGrid310<Integer> grid = new DynGrid310<>();
+			DynArr310<Integer> first = line(n);
+			for (int row=0; row<n; row++){
+				DynArr310<Integer> cell = new DynArr310<>();
+				cell.add(first.get(row));
+				grid.addRow(row, cell);
+			}
+			for (int col=1; col<n; col++)
+				grid.addCol(0, line(n));
+			return grid.getNumCol();
+		};
+	}
+
+	//build an n x n grid, then remove every column from the front
+	public static IntSupplier dynGridRemoveCol(int n){
+		return () -> {
+			DynGrid310<Integer> grid = square(n);
+			int removed = 0;
+			while (grid.getNumCol() > 0){
+				grid.removeCol(0);
+				removed++;
+			}
+			return removed;
+		};
+	}
+
+	//******************************************************
+	//*******               MineSweeper              *******
+	//******************************************************
+
+	//create a new game at a pre-defined level, with a new seed each time
+	public static IntSupplier newGame(String level){
+		MineSweeper.Level lvl = MineSweeper.Level.valueOf(level);
+		return () -> new MineSweeper(next++, lvl).mineLeft();
+	}
+
+	//create a new size x size custom game with the given mine density (percent)
+	public static IntSupplier newCustomGame(int size, int minePercent){
+		int mines = (int)((long)size*size*minePercent/100);
+		return () -> new MineSweeper(next++, MineSweeper.Level.CUSTOM, size, size, mines).mineLeft();
+	}
+
+	//a fresh size x size custom game, and a click on its first zero-count cell
+	public static IntSupplier clickCascade(int size, int minePercent, int seed){
+		int mines = (int)((long)size*size*minePercent/100);
+		MineSweeper game = new MineSweeper(seed, MineSweeper.Level.CUSTOM, size, size, mines);
+		int zero = 0;
+		while (zero < size*size && game.getCount(zero/size, zero%size) != 0)
+			zero++;
+		int row = zero/size;
+		int col = zero%size;
+		return () -> {
+			game.clickAt(row, col);
+			return game.getLastChanges().size();
+		};
+	}
+}
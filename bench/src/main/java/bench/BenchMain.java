@@ -0,0 +1,32 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line, and always adds
+ * the GC profiler (allocation rate per op) and a JSON result file, so runs can be
+ * compared to catch performance regressions.
+ */
+public final class BenchMain{
+
+	private BenchMain(){
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException{
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		Options options = new OptionsBuilder()
+			.parent(cmd)
+			.addProfiler(GCProfiler.class)
+			.resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+			.result(cmd.getResult().orElse("jmh-result.json"))
+			.build();
+		new Runner(options).run();
+	}
+}
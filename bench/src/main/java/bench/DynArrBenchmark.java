@@ -0,0 +1,79 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DynArr310 add / insert / remove, each building an array of n items from scratch,
+ * and the IntDynArr310, LongDynArr310 and ByteDynArr310 adds for comparison with boxed Integers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynArrBenchmark{
+
+	@Param({"1000", "10000"})
+	int n;
+
+	private IntSupplier add;
+	private IntSupplier addInt;
+	private IntSupplier addLong;
+	private IntSupplier addByte;
+	private IntSupplier insert;
+	private IntSupplier addRemove;
+
+	@Setup
+	public void setUp(){
+		add = Targets.get("dynArrAdd", n);
+		addInt = Targets.get("intDynArrAdd", n);
+		addLong = Targets.get("longDynArrAdd", n);
+		addByte = Targets.get("byteDynArrAdd", n);
+		insert = Targets.get("dynArrInsert", n);
+		addRemove = Targets.get("dynArrAddRemove", n);
+	}
+
+	@Benchmark
+	public int add(){
+		return add.getAsInt();
+	}
+
+	@Benchmark
+	public int addPrimitiveInt(){
+		return addInt.getAsInt();
+	}
+
+	@Benchmark
+	public int addPrimitiveLong(){
+		return addLong.getAsInt();
+	}
+
+	@Benchmark
+	public int addPrimitiveByte(){
+		return addByte.getAsInt();
+	}
+
+	@Benchmark
+	public int insertMiddle(){
+		return insert.getAsInt();
+	}
+
+	@Benchmark
+	public int addThenRemoveFront(){
+		return addRemove.getAsInt();
+	}
+}
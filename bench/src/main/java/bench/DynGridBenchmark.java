@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DynGrid310 reads and row / column edits on an n x n grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynGridBenchmark{
+
+	@Param({"100", "500"})
+	int n;
+
+	private IntSupplier get;
+	private IntSupplier addRow;
+	private IntSupplier addCol;
+	private IntSupplier removeCol;
+
+	@Setup
+	public void setUp(){
+		get = Targets.get("dynGridGet", n);
+		addRow = Targets.get("dynGridAddRow", n);
+		addCol = Targets.get("dynGridAddCol", n);
+		removeCol = Targets.get("dynGridRemoveCol", n);
+	}
+
+	@Benchmark
+	public int getAll(){
+		return get.getAsInt();
+	}
+
+	@Benchmark
+	public int addRows(){
+		return addRow.getAsInt();
+	}
+
+	@Benchmark
+	public int addColsAtFront(){
+		return addCol.getAsInt();
+	}
+
+	@Benchmark
+	public int buildThenRemoveCols(){
+		return removeCol.getAsInt();
+	}
+}
@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custom size x size boards: construction, and one click that opens a large
+ * zero-count area (a fresh board is prepared outside the measurement for every click).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeBoardBenchmark{
+
+	@Param({"500", "2000"})
+	int size;
+
+	@Param({"1", "10"})
+	int minePercent;
+
+	private IntSupplier newGame;
+
+	@Setup
+	public void setUp(){
+		newGame = Targets.get("newCustomGame", size, minePercent);
+	}
+
+	/**
+	 * A fresh board for every click, built outside the timed call. Only
+	 * clickCascade uses it, so newGame neither builds nor allocates one. The GC
+	 * profiler still counts its allocation in clickCascade's gc.alloc.rate.norm,
+	 * about one newGame's worth.
+	 */
+	@State(Scope.Thread)
+	public static class CascadeBoard{
+		IntSupplier cascade;
+		private int seed;
+
+		@Setup(Level.Invocation)
+		public void newBoard(LargeBoardBenchmark bench){
+			cascade = Targets.get("clickCascade", bench.size, bench.minePercent, seed++);
+		}
+	}
+
+	@Benchmark
+	public int newGame(){
+		return newGame.getAsInt();
+	}
+
+	@Benchmark
+	public int clickCascade(CascadeBoard board){
+		return board.cascade.getAsInt();
+	}
+}
@@ -0,0 +1,30 @@
+package bench;
+
+import java.lang.reflect.Method;
+import java.util.function.IntSupplier;
+
+/**
+ * Looks up the workloads in the default-package BenchTargets class by name.
+ * The lookup is reflective, but it only runs in setup methods; the suppliers
+ * it returns are called directly in the measured code.
+ */
+final class Targets{
+
+	private Targets(){
+	}
+
+	static IntSupplier get(String name, Object... args){
+		try {
+			Class<?> targets = Class.forName("BenchTargets");
+			for (Method m : targets.getMethods()){
+				if (m.getName().equals(name) && m.getParameterCount() == args.length){
+					return (IntSupplier) m.invoke(null, args);
+				}
+			}
+		}
+		catch (ReflectiveOperationException ex){
+			throw new IllegalStateException("Cannot create workload " + name, ex);
+		}
+		throw new IllegalArgumentException("No workload " + name + " with " + args.length + " arguments");
+	}
+}
@@ -0,0 +1,383 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local HTTP server that hosts many independent MineSweeper games, keyed by id.
+ *
+ * Requests are GETs with their parameters in the query string, and every answer is JSON:
+ *  - /new?level=EASY[&amp;seed=S], or /new?rows=R&amp;cols=C&amp;mines=M[&amp;seed=S]: starts a game and returns its id;
+ *  - /click, /flag, /unflag, /chord ?id=ID&amp;row=R&amp;col=C: makes a move, and returns its result and the changed cells;
+ *  - /state?id=ID: returns the size, counters and status of a game;
+ *  - /close?id=ID: ends a game.
+ * Changed cells are a flat array of (row, col, value) triples: the count of an
+ * opened cell (-1 for a mine), FLAGGED or HIDDEN. The board itself is never sent.
+ *
+ * Each request runs on its own virtual thread when the JDK has them (looked up by
+ * reflection, so the module still builds for Java 11), else on a cached thread pool.
+ * Requests on one game take turns through its session's lock. Sessions idle for
+ * longer than idleMillis are evicted to their BoardIO encoding, and decoded again
+ * at their next request.
+ *
+ * Answers are small, so without TCP_NODELAY Nagle's algorithm and delayed ACKs add
+ * about 40ms to each. The JDK server only turns it on through the JVM-wide property
+ * sun.net.httpserver.nodelay, read when the first server starts; the constructor
+ * leaves it alone, and main() calls useNoDelay() before starting.
+ */
+public class GameServer{
+
+	/**
+	 * Value of a cell flagged by a move.
+	 */
+	public static final int FLAGGED = -2;
+
+	/**
+	 * Value of a cell unflagged by a move.
+	 */
+	public static final int HIDDEN = -3;
+
+	/**
+	 * Largest board a client can ask for, in cells.
+	 */
+	public static final int MAX_CELLS = 1 << 22;
+
+	/**
+	 * Idle time after which a session is evicted, unless given.
+	 */
+	public static final long DEFAULT_IDLE_MILLIS = 30000;
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ScheduledExecutorService evictor;
+	private final long idleMillis;
+
+	private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+
+	/**
+	 * Constructor. Starts serving.
+	 * @param port port to listen on; 0 for any free port
+	 * @param idleMillis idle time after which a session is evicted
+	 * @throws IOException if the port cannot be opened
+	 */
+	public GameServer(int port, long idleMillis) throws IOException{
+		if (idleMillis <= 0){
+			throw new IllegalArgumentException("Invalid idle time: " + idleMillis + "!");
+		}
+		this.idleMillis = idleMillis;
+		executor = newRequestExecutor();
+		server = HttpServer.create(new InetSocketAddress(port), 1024);
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+
+		evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "session-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, idleMillis / 2);
+		evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * The method that returns an executor running each task on a new virtual thread
+	 * if the JDK has them (Java 21+), else on a cached pool of platform threads.
+	 * @return the executor
+	 */
+	public static ExecutorService newRequestExecutor(){
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e){
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * The method that sets the JVM-wide property sun.net.httpserver.nodelay to true,
+	 * unless it is set already, so every HttpServer of this JVM sends without delay.
+	 * It only takes effect if called before the first HttpServer is created.
+	 */
+	public static void useNoDelay(){
+		if (System.getProperty("sun.net.httpserver.nodelay") == null){
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	/**
+	 * The method that reports whether requests run on virtual threads.
+	 * @return true on Java 21+
+	 */
+	public static boolean hasVirtualThreads(){
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		}
+		catch (NoSuchMethodException e){
+			return false;
+		}
+	}
+
+	/**
+	 * The method that reports the port the server listens on.
+	 * @return port number
+	 */
+	public int port(){ return server.getAddress().getPort(); }
+
+	/**
+	 * The method that reports the number of games hosted.
+	 * @return number of sessions
+	 */
+	public int sessionCount(){ return sessions.size(); }
+
+	/**
+	 * The method that reports the number of games currently evicted; it walks every session.
+	 * @return number of evicted sessions
+	 */
+	public int evictedCount(){
+		int evicted = 0;
+		for (GameSession session : sessions.values()){
+			if (session.isEvicted()){
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * The method that reports the number of evictions so far.
+	 * @return number of evictions
+	 */
+	public long evictions(){ return evictions.sum(); }
+
+	/**
+	 * The method that reports the number of requests answered so far.
+	 * @return number of requests
+	 */
+	public long requests(){ return requests.sum(); }
+
+	/**
+	 * The method that stops serving and drops every game.
+	 */
+	public void stop(){
+		server.stop(0);
+		evictor.shutdownNow();
+		executor.shutdownNow();
+		sessions.clear();
+	}
+
+	private void evictIdle(){
+		long before = System.currentTimeMillis() - idleMillis;
+		for (GameSession session : sessions.values()){
+			if (session.evictIfIdle(before)){
+				evictions.increment();
+			}
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException{
+		String path = exchange.getRequestURI().getPath();
+		int code = 200;
+		String body;
+		try {
+			Map<String, String> params = params(exchange.getRequestURI().getRawQuery());
+			switch (path){
+				case "/new":
+					body = newGame(params);
+					break;
+				case "/click":
+				case "/flag":
+				case "/unflag":
+				case "/chord":
+					body = move(path, params);
+					break;
+				case "/state":
+					body = state(params);
+					break;
+				case "/close":
+					if (sessions.remove(param(params, "id")) == null){
+						throw new NoSuchElementException("Unknown game: " + params.get("id") + "!");
+					}
+					body = "{}";
+					break;
+				default:
+					throw new NoSuchElementException("Unknown request: " + path + "!");
+			}
+		}
+		catch (NoSuchElementException e){
+			code = 404;
+			body = error(e.getMessage());
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException e){
+			code = 400;
+			body = error(e.getMessage());
+		}
+		catch (IOException | RuntimeException e){
+			//anything else is a bug, but the client still gets an answer instead of hanging
+			code = 500;
+			body = error(e.getMessage());
+		}
+		requests.increment();
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(code, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()){
+			out.write(bytes);
+		}
+	}
+
+	private String newGame(Map<String, String> params){
+		int seed = params.containsKey("seed") ? Integer.parseInt(params.get("seed")) : ThreadLocalRandom.current().nextInt();
+		MineSweeper game;
+		if (params.containsKey("level")){
+			MineSweeper.Level level = MineSweeper.Level.valueOf(params.get("level"));
+			game = new MineSweeper(seed, level);
+		}
+		else {
+			int rows = Integer.parseInt(param(params, "rows"));
+			int cols = Integer.parseInt(param(params, "cols"));
+			int mines = Integer.parseInt(param(params, "mines"));
+			if (rows <= 0 || cols <= 0 || (long)rows*cols > MAX_CELLS || mines < 0 || mines >= rows*cols){
+				throw new IllegalArgumentException("Invalid game: " + rows + " x " + cols + ", " + mines + " mines!");
+			}
+			game = new MineSweeper(seed, MineSweeper.Level.CUSTOM, rows, cols, mines);
+		}
+		String id = Long.toString(nextId.incrementAndGet(), 36);
+		sessions.put(id, new GameSession(game));
+		return "{\"id\":\"" + id + "\",\"rows\":" + game.rowCount() + ",\"cols\":" + game.colCount()
+			+ ",\"mines\":" + game.mineLeft() + ",\"status\":\"" + game.getStatus() + "\"}";
+	}
+
+	private String move(String path, Map<String, String> params) throws IOException{
+		GameSession session = session(params);
+		int row = Integer.parseInt(param(params, "row"));
+		int col = Integer.parseInt(param(params, "col"));
+		session.lock();
+		try {
+			MineSweeper game = session.game();
+			if (row < 0 || col < 0 || row >= game.rowCount() || col >= game.colCount()){
+				throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
+			}
+			int result;
+			int value = 0; //0: the count of each cell
+			switch (path){
+				case "/click":
+					result = game.clickAt(row, col);
+					break;
+				case "/flag":
+					result = game.flagAt(row, col) ? 1 : 0;
+					value = FLAGGED;
+					break;
+				case "/unflag":
+					result = game.unFlagAt(row, col) ? 1 : 0;
+					value = HIDDEN;
+					break;
+				default:
+					result = game.chordAt(row, col).size();
+			}
+
+			ChangeSet changes = game.getLastChanges();
+			StringBuilder json = new StringBuilder(64 + 16*changes.size());
+			json.append("{\"result\":").append(result)
+				.append(",\"status\":\"").append(game.getStatus())
+				.append("\",\"minesLeft\":").append(game.mineLeft())
+				.append(",\"changes\":[");
+			for (int k = 0; k < changes.size(); k++){
+				int r = changes.row(k);
+				int c = changes.col(k);
+				if (k > 0){
+					json.append(',');
+				}
+				json.append(r).append(',').append(c).append(',').append(value == 0 ? game.getCount(r, c) : value);
+			}
+			return json.append("]}").toString();
+		}
+		finally {
+			session.unlock();
+		}
+	}
+
+	private String state(Map<String, String> params) throws IOException{
+		GameSession session = session(params);
+		session.lock();
+		try {
+			MineSweeper game = session.game();
+			return "{\"rows\":" + game.rowCount() + ",\"cols\":" + game.colCount()
+				+ ",\"minesLeft\":" + game.mineLeft() + ",\"clicks\":" + game.clickCount()
+				+ ",\"status\":\"" + game.getStatus() + "\"}";
+		}
+		finally {
+			session.unlock();
+		}
+	}
+
+	private GameSession session(Map<String, String> params){
+		GameSession session = sessions.get(param(params, "id"));
+		if (session == null){
+			throw new NoSuchElementException("Unknown game: " + params.get("id") + "!");
+		}
+		return session;
+	}
+
+	private static String param(Map<String, String> params, String name){
+		String value = params.get(name);
+		if (value == null){
+			throw new IllegalArgumentException("Missing parameter: " + name + "!");
+		}
+		return value;
+	}
+
+	private static Map<String, String> params(String query){
+		Map<String, String> params = new HashMap<>();
+		if (query == null || query.isEmpty()){
+			return params;
+		}
+		for (String pair : query.split("&")){
+			int eq = pair.indexOf('=');
+			if (eq > 0){
+				params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+					URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return params;
+	}
+
+	private static String error(String message){
+		return "{\"error\":\"" + String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+	}
+
+	/**
+	 * Starts a server until the process is stopped, with TCP_NODELAY on (see useNoDelay()).
+	 * @param args optional port (default 8080) and idle seconds before eviction (default 30)
+	 * @throws IOException if the port cannot be opened
+	 */
+	public static void main(String[] args) throws IOException{
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		long idleMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : DEFAULT_IDLE_MILLIS;
+		useNoDelay();
+		GameServer server = new GameServer(port, idleMillis);
+		System.out.println("MineSweeper server on port " + server.port()
+			+ (hasVirtualThreads() ? ", virtual threads" : ", thread pool"));
+	}
+}
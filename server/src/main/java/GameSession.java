@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One game hosted by GameServer.
+ *
+ * While in use the session holds the live MineSweeper game. Once idle it can be
+ * evicted to the game's BoardIO encoding (three bitplanes and the packed counts),
+ * and it is decoded again at its next request. Callers hold the lock around
+ * game() and the moves they make on it; a ReentrantLock rather than synchronized,
+ * so a virtual thread waiting for it does not pin its carrier thread.
+ */
+final class GameSession{
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * The game, or null while evicted.
+	 */
+	private MineSweeper game;
+
+	/**
+	 * Encoded game while evicted, or null.
+	 */
+	private byte[] saved;
+
+	/**
+	 * Time of the last request, in milliseconds.
+	 */
+	private volatile long lastUsed;
+
+
+	GameSession(MineSweeper game){
+		this.game = game;
+		lastUsed = System.currentTimeMillis();
+	}
+
+	void lock(){ lock.lock(); }
+
+	void unlock(){ lock.unlock(); }
+
+	/**
+	 * The method that returns the game, decoding it if the session was evicted.
+	 * The caller must hold the lock.
+	 * @return the game
+	 * @throws IOException if the saved game cannot be decoded
+	 */
+	MineSweeper game() throws IOException{
+		if (game == null){
+			game = BoardIO.decode(ByteBuffer.wrap(saved));
+			saved = null;
+		}
+		lastUsed = System.currentTimeMillis();
+		return game;
+	}
+
+	/**
+	 * The method that evicts the game if it was last used before a time and no request is using it.
+	 * @param before time in milliseconds
+	 * @return true if the game was evicted
+	 */
+	boolean evictIfIdle(long before){
+		if (lastUsed >= before || !lock.tryLock()){
+			return false;
+		}
+		try {
+			if (game == null || lastUsed >= before){
+				return false;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(BoardIO.encodedSize(game));
+			BoardIO.encode(game, buffer);
+			saved = buffer.array();
+			game = null;
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The method that reports whether the game is evicted.
+	 * @return true if only the encoded game is kept
+	 */
+	boolean isEvicted(){
+		lock.lock();
+		try {
+			return game == null;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+}
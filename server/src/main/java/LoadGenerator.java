@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for GameServer: plays many games at once and reports request latency.
+ *
+ * Each simulated player starts an EASY game and makes a number of random moves
+ * (mostly clicks, some flags), each request timed from send to full response.
+ * Players run on virtual threads when the JDK has them, so every session has a
+ * request in flight at the same time. Otherwise (Java 11 to 20, or when a number
+ * of client threads is given) they run on a pool of platform threads, by default
+ * CLIENT_THREADS: all sessions are alive, but only that many requests are in flight.
+ * Unless a server address is given ("-" for none), a server is started in this process.
+ *
+ * Usage: java LoadGenerator [sessions (10000)] [moves per session (20)] [host:port | -] [client threads]
+ */
+public class LoadGenerator{
+
+	/**
+	 * Client threads without virtual threads.
+	 */
+	private static final int CLIENT_THREADS = 16;
+
+	public static void main(String[] args) throws Exception{
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int moves = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		GameServer local = null;
+		String address;
+		if (args.length > 2 && !args[2].equals("-")){
+			address = args[2];
+		}
+		else {
+			GameServer.useNoDelay();
+			local = new GameServer(0, GameServer.DEFAULT_IDLE_MILLIS);
+			address = "localhost:" + local.port();
+		}
+		String base = "http://" + address;
+
+		boolean virtual = args.length <= 3 && GameServer.hasVirtualThreads();
+		int clientThreads = args.length > 3 ? Integer.parseInt(args[3]) : CLIENT_THREADS;
+		ExecutorService players = virtual ? GameServer.newRequestExecutor() : Executors.newFixedThreadPool(clientThreads);
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+		long[] latencies = new long[sessions * (moves + 1)];
+		AtomicInteger recorded = new AtomicInteger();
+		AtomicLong errors = new AtomicLong();
+		System.out.println("sessions: " + sessions + ", moves each: " + moves + ", server: " + base
+			+ (virtual ? ", virtual threads" : ", " + clientThreads + " client threads"));
+
+		long start = System.nanoTime();
+		for (int s = 0; s < sessions; s++){
+			final int player = s;
+			players.execute(() -> {
+				SplittableRandom random = new SplittableRandom(player);
+				try {
+					String game = send(client, base + "/new?level=EASY&seed=" + player, latencies, recorded, errors);
+					if (game == null){
+						return;
+					}
+					String id = field(game, "id");
+					int rows = Integer.parseInt(field(game, "rows"));
+					int cols = Integer.parseInt(field(game, "cols"));
+					for (int m = 0; m < moves; m++){
+						String move = random.nextInt(5) == 0 ? "/flag" : "/click";
+						send(client, base + move + "?id=" + id + "&row=" + random.nextInt(rows) + "&col=" + random.nextInt(cols),
+							latencies, recorded, errors);
+					}
+				}
+				catch (IOException e){
+					errors.incrementAndGet();
+				}
+				catch (InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		players.shutdown();
+		players.awaitTermination(1, TimeUnit.HOURS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		int n = recorded.get();
+		long[] sorted = Arrays.copyOf(latencies, n);
+		Arrays.sort(sorted);
+		System.out.printf("requests: %d in %.2f s (%.0f/s), errors: %d%n", n, seconds, n / seconds, errors.get());
+		if (n > 0){
+			System.out.printf("latency ms: p50 %.3f, p99 %.3f, max %.3f%n",
+				percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted[n-1] / 1e6);
+		}
+		if (local != null){
+			System.out.println("server sessions: " + local.sessionCount() + ", requests: " + local.requests()
+				+ ", evictions: " + local.evictions());
+			local.stop();
+		}
+	}
+
+	//time one request; the body, or null (counted as an error) if the status is not 200
+	private static String send(HttpClient client, String url, long[] latencies, AtomicInteger recorded, AtomicLong errors)
+			throws IOException, InterruptedException{
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+		long start = System.nanoTime();
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		latencies[recorded.getAndIncrement()] = System.nanoTime() - start;
+		if (response.statusCode() != 200){
+			errors.incrementAndGet();
+			return null;
+		}
+		return response.body();
+	}
+
+	//value of a top-level field in a flat JSON object, without its quotes
+	private static String field(String json, String name){
+		int from = json.indexOf("\"" + name + "\":") + name.length() + 3;
+		int to = from;
+		while (to < json.length() && json.charAt(to) != ',' && json.charAt(to) != '}'){
+			to++;
+		}
+		return json.substring(from, to).replace("\"", "");
+	}
+
+	private static long percentile(long[] sorted, double p){
+		return sorted[Math.min(sorted.length - 1, (int)(p * sorted.length))];
+	}
+}
@@ -0,0 +1,252 @@
+import java.util.Arrays;
+
+/**
+ * Plays the moves of a MineSweeper game that follow from the revealed counts.
+ *
+ * It keeps a work list of revealed cells whose hidden neighborhood changed
+ * (the frontier that still needs looking at). Each move only adds the revealed
+ * cells around the cells it changed, so the board is never rescanned. For a
+ * cell on the list it applies:
+ *  - the single-cell rules: if the flags around a count already match it, the
+ *    other hidden neighbors are safe; if the hidden neighbors are exactly the
+ *    mines still missing, they are all mines;
+ *  - the pairwise rule with every revealed cell up to two steps away: if the
+ *    mines one count needs beyond the other equal the number of cells only it
+ *    can see, those cells are mines and the cells only the other sees are safe.
+ *    (This includes the subset rule, where one cell sees nothing of its own.)
+ * Flags are assumed correct, i.e. only placed by this solver.
+ */
+public class AutoSolver{
+
+	//cells of a 7x7 window are bits of a long; bit (i+3)*7 + (j+3) is offset (i,j)
+	private static final int WINDOW = 7;
+	private static final int CENTER = 3;
+
+	/**
+	 * Game being solved.
+	 */
+	private final MineSweeper game;
+
+	/**
+	 * Board size of the game.
+	 */
+	private final int rows, cols;
+
+	/**
+	 * Work list (a stack) of flat indexes of revealed cells to look at.
+	 */
+	private final int[] work;
+
+	/**
+	 * Number of cells on the work list.
+	 */
+	private int workSize;
+
+	/**
+	 * One bit per cell: set while the cell is on the work list.
+	 */
+	private final long[] queued;
+
+
+	/**
+	 * Constructor. Puts every cell already revealed on the work list.
+	 * @param game the game to solve
+	 */
+	public AutoSolver(MineSweeper game){
+		this.game = game;
+		this.rows = game.rowCount();
+		this.cols = game.colCount();
+		work = new int[rows*cols];
+		queued = new long[(rows*cols + 63) >>> 6];
+		reset();
+	}
+
+	/**
+	 * The method to start over after the game was re-initialized (or changed outside this solver).
+	 * Every revealed cell is put on the work list.
+	 */
+	public void reset(){
+		workSize = 0;
+		Arrays.fill(queued, 0L);
+		for (int row=0; row<rows; row++){
+			for (int col=0; col<cols; col++){
+				enqueue(row, col);
+			}
+		}
+	}
+
+	/**
+	 * The method that reports the game this solver plays.
+	 * @return the game
+	 */
+	public MineSweeper getGame(){ return game; }
+
+	/**
+	 * The method that clicks a cell, e.g. a first click or a guess, and updates the frontier.
+	 * @param row row index
+	 * @param col column index
+	 * @return the result of MineSweeper.clickAt()
+	 */
+	public int clickAt(int row, int col){
+		int result = game.clickAt(row, col);
+		ChangeSet opened = game.getLastChanges();
+		for (int k=0; k<opened.size(); k++){
+			enqueueAround(opened.row(k), opened.col(k));
+		}
+		return result;
+	}
+
+	/**
+	 * The method that flags a cell and updates the frontier.
+	 * @param row row index
+	 * @param col column index
+	 * @return the result of MineSweeper.flagAt()
+	 */
+	public boolean flagAt(int row, int col){
+		boolean result = game.flagAt(row, col);
+		if (game.getLastChanges().size() > 0){
+			enqueueAround(row, col);
+		}
+		return result;
+	}
+
+	/**
+	 * The method that plays every move that follows from the counts, until there is
+	 * none left (a guess would be needed) or the game is over.
+	 * @return the number of cells clicked or flagged
+	 */
+	public int solve(){
+		int moves = 0;
+		while (workSize > 0 && !game.isSolved() && !game.isExploded()){
+			int idx = work[--workSize];
+			queued[idx>>>6] &= ~(1L<<idx);
+			moves += solveAt(idx / cols, idx % cols);
+		}
+		return moves;
+	}
+
+	/**
+	 * The method that reports whether solve() stopped because no move follows from the counts.
+	 * @return true if the game is still going and the work list is empty
+	 */
+	public boolean needsGuess(){
+		return workSize == 0 && !game.isSolved() && !game.isExploded();
+	}
+
+	//apply the rules to one revealed cell; return the number of moves made
+	private int solveAt(int row, int col){
+		int count = game.getCount(row, col);
+		if (count <= 0 || game.isFlagged(row, col)){
+			return 0;
+		}
+		long hidden = hiddenAround(row, col, 0, 0);
+		if (hidden == 0){
+			return 0;
+		}
+		int need = count - flagsAround(row, col);
+
+		//single-cell rules
+		if (need == 0){
+			return apply(row, col, 0, hidden);
+		}
+		if (need == Long.bitCount(hidden)){
+			return apply(row, col, hidden, 0);
+		}
+
+		//pairwise rule with each revealed cell that can share a hidden neighbor
+		for (int dr=-2; dr<=2; dr++){
+			for (int dc=-2; dc<=2; dc++){
+				int r = row+dr;
+				int c = col+dc;
+				if ((dr == 0 && dc == 0) || !game.isVisible(r, c) || game.isFlagged(r, c)){
+					continue;
+				}
+				int otherCount = game.getCount(r, c);
+				if (otherCount <= 0){
+					continue;
+				}
+				long other = hiddenAround(r, c, dr, dc);
+				if ((hidden & other) == 0){
+					continue;
+				}
+				int otherNeed = otherCount - flagsAround(r, c);
+				long onlyHere = hidden & ~other;
+				long onlyThere = other & ~hidden;
+				if (need - otherNeed == Long.bitCount(onlyHere) && (onlyHere | onlyThere) != 0){
+					return apply(row, col, onlyHere, onlyThere);
+				}
+				if (otherNeed - need == Long.bitCount(onlyThere) && (onlyHere | onlyThere) != 0){
+					return apply(row, col, onlyThere, onlyHere);
+				}
+			}
+		}
+		return 0;
+	}
+
+	//hidden, unflagged neighbors of (row,col) as window bits, with the window
+	//centered (dr,dc) away from (row,col), i.e. on the cell being solved
+	private long hiddenAround(int row, int col, int dr, int dc){
+		long mask = 0;
+		for (int i=-1; i<=1; i++){
+			for (int j=-1; j<=1; j++){
+				int r = row+i;
+				int c = col+j;
+				if ((i != 0 || j != 0) && r >= 0 && c >= 0 && r < rows && c < cols
+						&& !game.isVisible(r, c) && !game.isFlagged(r, c)){
+					mask |= 1L << ((dr+i+CENTER)*WINDOW + (dc+j+CENTER));
+				}
+			}
+		}
+		return mask;
+	}
+
+	private int flagsAround(int row, int col){
+		int flags = 0;
+		for (int i=-1; i<=1; i++){
+			for (int j=-1; j<=1; j++){
+				if ((i != 0 || j != 0) && game.isFlagged(row+i, col+j)){
+					flags++;
+				}
+			}
+		}
+		return flags;
+	}
+
+	//flag the mines and click the safe cells, given as window bits centered on (row,col)
+	private int apply(int row, int col, long mines, long safe){
+		int moves = 0;
+		for (long m = mines; m != 0; m &= m-1){
+			int bit = Long.numberOfTrailingZeros(m);
+			if (flagAt(row + bit/WINDOW - CENTER, col + bit%WINDOW - CENTER)){
+				moves++;
+			}
+		}
+		for (long s = safe; s != 0; s &= s-1){
+			int bit = Long.numberOfTrailingZeros(s);
+			if (clickAt(row + bit/WINDOW - CENTER, col + bit%WINDOW - CENTER) >= 0){
+				moves++;
+			}
+		}
+		return moves;
+	}
+
+	//put the revealed cells in the 3x3 block around (row,col) on the work list
+	private void enqueueAround(int row, int col){
+		for (int i=-1; i<=1; i++){
+			for (int j=-1; j<=1; j++){
+				enqueue(row+i, col+j);
+			}
+		}
+	}
+
+	private void enqueue(int row, int col){
+		if (row < 0 || col < 0 || row >= rows || col >= cols || !game.isVisible(row, col)){
+			return;
+		}
+		int idx = row*cols + col;
+		if ((queued[idx>>>6] & (1L<<idx)) == 0){
+			queued[idx>>>6] |= 1L<<idx;
+			work[workSize++] = idx;
+		}
+	}
+}
@@ -0,0 +1,476 @@
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+public class BitBoard{
+
+	/**
+	 * Number of cells held by one word of a bitplane.
+	 */
+	private static final int BITS_PER_WORD = 64;
+
+	/**
+	 * Number of neighbor counts packed into one word (4 bits each).
+	 */
+	private static final int NIBBLES_PER_WORD = 16;
+
+	/**
+	 * Nibble value stored for cells without a count (mines, or not computed yet).
+	 */
+	private static final int NO_COUNT = 0xF;
+
+	/**
+	 * Number of rows of the board.
+	 */
+	private final int rows;
+
+	/**
+	 * Number of columns of the board.
+	 */
+	private final int cols;
+
+	/**
+	 * Bitplane of mines, one bit per cell in row-major order.
+	 */
+	private long[] mines;
+
+	/**
+	 * Bitplane of cells that have been clicked open.
+	 */
+	private long[] visible;
+
+	/**
+	 * Bitplane of cells that have been flagged.
+	 */
+	private long[] flagged;
+
+	/**
+	 * Neighbor mine counts, one nibble per cell in row-major order.
+	 */
+	private long[] counts;
+
+	/**
+	 * True while mines and counts may be shared with other boards (see copyLayout()).
+	 * They are copied before the first change, so sharing boards never see each other's changes.
+	 */
+	private boolean sharedLayout;
+
+
+	/**
+	 * Constructor. Creates an empty board (no mines, all cells hidden and unflagged,
+	 * no counts) of the given size.
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 */
+	public BitBoard(int rows, int cols){
+		if (rows<=0 || cols<=0 || (long)rows*cols > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Invalid board size: " + rows + " x " + cols + "!");
+		}
+		this.rows = rows;
+		this.cols = cols;
+		int size = rows*cols;
+		mines = new long[words(size, BITS_PER_WORD)];
+		visible = new long[words(size, BITS_PER_WORD)];
+		flagged = new long[words(size, BITS_PER_WORD)];
+		counts = new long[words(size, NIBBLES_PER_WORD)];
+		Arrays.fill(counts, -1L); //every nibble NO_COUNT
+	}
+
+	//copy-on-write constructor: shares the mines and counts of layout, with its own visible and flagged cells
+	private BitBoard(BitBoard layout){
+		rows = layout.rows;
+		cols = layout.cols;
+		mines = layout.mines;
+		counts = layout.counts;
+		visible = new long[layout.visible.length];
+		flagged = new long[layout.flagged.length];
+		sharedLayout = true;
+		layout.sharedLayout = true;
+	}
+
+	private static int words(int size, int perWord){
+		return (int)(((long)size + perWord - 1) / perWord);
+	}
+
+	/**
+	 * The method that reports the number of rows.
+	 * @return number of rows
+	 */
+	public int rows(){ return rows; }
+
+	/**
+	 * The method that reports the number of columns.
+	 * @return number of columns
+	 */
+	public int cols(){ return cols; }
+
+	/**
+	 * The method that reports the number of cells.
+	 * @return rows x cols
+	 */
+	public int size(){ return rows*cols; }
+
+	/**
+	 * The method that reports whether (row,col) is on the board.
+	 * @param row row index
+	 * @param col column index
+	 * @return true if (row,col) is a cell of this board; false otherwise
+	 */
+	public boolean isValidCell(int row, int col){
+		return row>=0 && col>=0 && row<rows && col<cols;
+	}
+
+	/**
+	 * The method that converts (row,col) to a flat row-major index.
+	 * It assumes (row,col) is valid (no further checking).
+	 * @param row row index
+	 * @param col column index
+	 * @return the flat index of the cell
+	 */
+	public int index(int row, int col){ return row*cols + col; }
+
+	/**
+	 * The method that resets every cell to the default state (no mine, hidden, unflagged, no count).
+	 */
+	public void clear(){
+		if (sharedLayout){
+			//no need to copy what is about to be cleared
+			mines = new long[mines.length];
+			counts = new long[counts.length];
+			sharedLayout = false;
+		}
+		else {
+			Arrays.fill(mines, 0L);
+		}
+		Arrays.fill(visible, 0L);
+		Arrays.fill(flagged, 0L);
+		Arrays.fill(counts, -1L);
+	}
+
+	/**
+	 * The method that creates a board with the same mines and counts, sharing them
+	 * with this board until either board changes them. Nothing is visible or flagged
+	 * on the new board, so creating one costs two small bitplanes.
+	 * @return a new board with the same layout
+	 */
+	public BitBoard copyLayout(){
+		return new BitBoard(this);
+	}
+
+	/**
+	 * The method that reports whether the mines and counts may be shared with another board.
+	 * @return true if they have not been copied since copyLayout()
+	 */
+	public boolean isLayoutShared(){ return sharedLayout; }
+
+	/**
+	 * The method that reports the memory held by the mines and counts.
+	 * @return number of bytes of the mine bitplane and the packed counts
+	 */
+	public long layoutBytes(){
+		return 8L*(mines.length + counts.length);
+	}
+
+	/**
+	 * The method that gives this board its own copy of the mines and counts if they are shared.
+	 * Every change calls it; bulk builders call it once before writing from several threads.
+	 */
+	public void ownLayout(){
+		if (sharedLayout){
+			mines = mines.clone();
+			counts = counts.clone();
+			sharedLayout = false;
+		}
+	}
+
+	//bit access by flat index; a long shift only uses the low 6 bits of idx
+
+	public boolean hasMine(int idx){ return (mines[idx>>>6] & (1L<<idx)) != 0; }
+
+	public void setMine(int idx){ ownLayout(); mines[idx>>>6] |= 1L<<idx; }
+
+	public void removeMine(int idx){ ownLayout(); mines[idx>>>6] &= ~(1L<<idx); }
+
+	public boolean isVisible(int idx){ return (visible[idx>>>6] & (1L<<idx)) != 0; }
+
+	public void setVisible(int idx){ visible[idx>>>6] |= 1L<<idx; }
+
+	public void setInvisible(int idx){ visible[idx>>>6] &= ~(1L<<idx); }
+
+	public boolean isFlagged(int idx){ return (flagged[idx>>>6] & (1L<<idx)) != 0; }
+
+	public void setFlagged(int idx){ flagged[idx>>>6] |= 1L<<idx; }
+
+	public void unFlagged(int idx){ flagged[idx>>>6] &= ~(1L<<idx); }
+
+	/**
+	 * The method that reports the number of mines adjacent to a cell.
+	 * Mines report -1, same as Cell. A count not built yet (see CountBuilder) is
+	 * computed from the mines now, and stored unless the layout is shared, so
+	 * boards can skip CountBuilder and pay only for the cells that are read.
+	 * @param idx flat index of the cell
+	 * @return the count of the cell
+	 */
+	public int getCount(int idx){
+		int nibble = (int)(counts[idx>>>4] >>> ((idx & 15)<<2)) & NO_COUNT;
+		if (nibble != NO_COUNT){
+			return nibble;
+		}
+		if (hasMine(idx)){
+			return -1;
+		}
+		int count = countMines(idx);
+		if (!sharedLayout){
+			//a shared layout is left alone, every board computes its own; if two
+			//threads store counts of one word at once, one is lost and computed again
+			setCount(idx, count);
+		}
+		return count;
+	}
+
+	//number of mines around a cell, from the mine bitplane
+	private int countMines(int idx){
+		int row = idx / cols;
+		int col = idx - row*cols;
+		int count = 0;
+		for (int i = Math.max(0, row-1); i <= Math.min(rows-1, row+1); i++){
+			for (int j = Math.max(0, col-1); j <= Math.min(cols-1, col+1); j++){
+				if (hasMine(i*cols + j)){
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * The method that sets the number of mines adjacent to a cell.
+	 * @param idx flat index of the cell
+	 * @param count the count, -1 for a mine
+	 */
+	public void setCount(int idx, int count){
+		if (count<-1 || count>8){
+			throw new IllegalArgumentException("Incorrect count value: " + count + "!");
+		}
+		ownLayout();
+		int shift = (idx & 15)<<2;
+		long nibble = count == -1 ? NO_COUNT : count;
+		counts[idx>>>4] = (counts[idx>>>4] & ~((long)NO_COUNT<<shift)) | (nibble<<shift);
+	}
+
+	/**
+	 * The method that stores up to 16 packed counts at once, for bulk builders.
+	 * Count nibbles use the same encoding as setCount(), with 0xF for -1.
+	 * @param word index of the word of counts (flat index of its first cell / 16)
+	 * @param nibbles the counts, 4 bits per cell
+	 * @param mask 0xF in every nibble to replace, 0 in every nibble to keep
+	 */
+	public void setCountWord(int word, long nibbles, long mask){
+		ownLayout();
+		counts[word] = (counts[word] & ~mask) | (nibbles & mask);
+	}
+
+	/**
+	 * The method that reports the number of words of one bitplane.
+	 * @return number of longs of the mine (or visible, or flagged) bitplane
+	 */
+	public int planeWords(){ return mines.length; }
+
+	/**
+	 * The method that reports the number of words of packed counts.
+	 * @return number of longs of counts (16 cells per long)
+	 */
+	public int countWords(){ return counts.length; }
+
+	/**
+	 * The method that checks that the packed counts hold only what a board can hold:
+	 * 0 to 8 or NO_COUNT for each cell, and NO_COUNT for every mine. It does not
+	 * check that the counts match the mines.
+	 * @return true if the counts are well-formed
+	 */
+	public boolean countsWellFormed(){
+		//nibbles 9 to 14 have the top bit and some, but not all, of the others
+		final long ones = 0x1111111111111111L;
+		for (long word : counts){
+			long b0 = word & ones, b1 = word>>>1 & ones, b2 = word>>>2 & ones, b3 = word>>>3 & ones;
+			if ((b3 & (b0|b1|b2) & ~(b0&b1&b2)) != 0){
+				return false;
+			}
+		}
+		for (int word = 0; word < mines.length; word++){
+			for (long bits = mines[word]; bits != 0; bits &= bits - 1){
+				int idx = (word<<6) + Long.numberOfTrailingZeros(bits);
+				if (((counts[idx>>>4] >>> ((idx & 15)<<2)) & NO_COUNT) != NO_COUNT){
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The method that returns 64 cells of the mine bitplane; cell idx is bit idx % 64 of word idx / 64.
+	 * @param word index of the word
+	 * @return the mine bits of cells 64 x word to 64 x word + 63
+	 */
+	public long mineWord(int word){ return mines[word]; }
+
+	/**
+	 * The method that returns 64 cells of the visible bitplane, laid out as in mineWord().
+	 * @param word index of the word
+	 * @return the visible bits of cells 64 x word to 64 x word + 63
+	 */
+	public long visibleWord(int word){ return visible[word]; }
+
+	/**
+	 * The method that returns 64 cells of the flagged bitplane, laid out as in mineWord().
+	 * @param word index of the word
+	 * @return the flagged bits of cells 64 x word to 64 x word + 63
+	 */
+	public long flaggedWord(int word){ return flagged[word]; }
+
+	/**
+	 * The method that writes the mine, visible and flagged bitplanes and then the
+	 * packed counts, in bulk.
+	 * @param out buffer with room for 3 x planeWords() + countWords() longs
+	 */
+	public void putPlanes(LongBuffer out){
+		out.put(mines);
+		out.put(visible);
+		out.put(flagged);
+		out.put(counts);
+	}
+
+	/**
+	 * The method that reads the bitplanes and counts written by putPlanes().
+	 * Bits past the last cell are ignored.
+	 * @param in buffer holding 3 x planeWords() + countWords() longs
+	 */
+	public void getPlanes(LongBuffer in){
+		ownLayout();
+		in.get(mines);
+		in.get(visible);
+		in.get(flagged);
+		in.get(counts);
+		int tail = size() & 63;
+		if (tail != 0){
+			long mask = (1L << tail) - 1;
+			mines[mines.length-1] &= mask;
+			visible[visible.length-1] &= mask;
+			flagged[flagged.length-1] &= mask;
+		}
+	}
+
+	/**
+	 * The method that returns the String of a cell, in the same format as Cell.toString().
+	 * @param idx flat index of the cell
+	 * @return a String representation of the cell
+	 */
+	public String cellToString(int idx){
+		if (isFlagged(idx)) return "F";
+		if (isVisible(idx)){
+			if (hasMine(idx)) return "X";
+			int count = getCount(idx);
+			return count == 0 ? " " : ""+count;
+		}
+		return "?";
+	}
+
+	/**
+	 * The method that builds a grid of Cell views over this board.
+	 * Each Cell reads and writes this board directly, so changes made
+	 * through the grid are seen by the game and the other way around.
+	 * @return a rows x cols grid of cell views
+	 */
+	public DynGrid310<Cell> toGrid(){
+		DynGrid310<Cell> grid = new DynGrid310<>();
+		for (int row=0; row<rows; row++){
+			DynArr310<Cell> cells = new DynArr310<>(Math.max(2, cols));
+			for (int col=0; col<cols; col++){
+				cells.add(new CellView(this, index(row,col)));
+			}
+			grid.addRow(row, cells);
+		}
+		return grid;
+	}
+
+	/**
+	 * The method that copies the state of a grid of cells into a new board.
+	 * Counts are not copied; the caller recomputes them from the mines.
+	 * @param grid grid of cells (not empty)
+	 * @return a new board with the same mines, visible and flagged cells
+	 */
+	public static BitBoard fromGrid(DynGrid310<Cell> grid){
+		BitBoard board = new BitBoard(grid.getNumRow(), grid.getNumCol());
+		for (int row=0; row<board.rows; row++){
+			for (int col=0; col<board.cols; col++){
+				Cell cell = grid.get(row,col);
+				int idx = board.index(row,col);
+				if (cell.hasMine()) board.setMine(idx);
+				if (cell.visible()) board.setVisible(idx);
+				if (cell.isFlagged()) board.setFlagged(idx);
+			}
+		}
+		return board;
+	}
+
+
+	/**
+	 * A Cell that stores its state in a BitBoard instead of its own fields.
+	 */
+	private static class CellView extends Cell{
+
+		private final BitBoard board;
+		private final int idx;
+
+		CellView(BitBoard board, int idx){
+			this.board = board;
+			this.idx = idx;
+		}
+
+		@Override
+		public void setMine(){ board.setMine(idx); }
+
+		@Override
+		public void removeMine(){ board.removeMine(idx); }
+
+		@Override
+		public boolean hasMine(){ return board.hasMine(idx); }
+
+		@Override
+		public void setVisible(){ board.setVisible(idx); }
+
+		@Override
+		public void setInvisible(){ board.setInvisible(idx); }
+
+		@Override
+		public boolean visible(){ return board.isVisible(idx); }
+
+		@Override
+		public void setFlagged(){ board.setFlagged(idx); }
+
+		@Override
+		public void unFlagged(){ board.unFlagged(idx); }
+
+		@Override
+		public boolean isFlagged(){ return board.isFlagged(idx); }
+
+		@Override
+		public int getCount(){ return board.getCount(idx); }
+
+		@Override
+		public void setCount(int count){ board.setCount(idx, count); }
+
+		@Override
+		public String toString(){ return board.cellToString(idx); }
+
+		@Override
+		public String toStringDebug(){
+			String visibleS = visible()? ",v":"";
+			String flaggedS = isFlagged()? "f":"";
+			if (hasMine())
+				return "X,"+flaggedS +visibleS;
+			else
+				return " ,"+flaggedS + getCount()+visibleS;
+		}
+	}
+}
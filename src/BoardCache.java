@@ -0,0 +1,163 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of generated boards, keyed by (seed, level, rows, cols, mines).
+ *
+ * Each entry is a template board with the mines and counts of that key and
+ * nothing visible or flagged. Games get a copy-on-write copy of the template
+ * (BitBoard.copyLayout()), so a hit costs two small bitplanes instead of placing
+ * mines and computing counts. Entries are evicted least recently used first, once
+ * the cache holds more than maxEntries boards or more than maxBytes of layout.
+ */
+public class BoardCache{
+
+	/**
+	 * Templates by key, in access order (least recently used first).
+	 */
+	private final LinkedHashMap<Key, BitBoard> templates = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Limits on the number of templates and on the memory they hold.
+	 */
+	private final int maxEntries;
+	private final long maxBytes;
+
+	/**
+	 * Memory held by the templates, in bytes.
+	 */
+	private long bytes;
+
+	/**
+	 * Lookup statistics.
+	 */
+	private long hits, misses, evictions;
+
+
+	/**
+	 * Constructor.
+	 * @param maxEntries maximum number of boards kept
+	 * @param maxBytes maximum memory of the boards kept, in bytes
+	 */
+	public BoardCache(int maxEntries, long maxBytes){
+		if (maxEntries <= 0 || maxBytes <= 0){
+			throw new IllegalArgumentException("Invalid cache size: " + maxEntries + " boards, " + maxBytes + " bytes!");
+		}
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * The method that returns the template board of a key, generating it on a miss
+	 * with the same mines as MineSweeper.initBoard(seed).
+	 * The template must not be changed; pass it to MineSweeper.setBoard(), or use copyLayout().
+	 * @param seed seed for the random number sequence
+	 * @param level level of the game
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @param mineCount number of mines
+	 * @return the shared template board
+	 */
+	public synchronized BitBoard get(int seed, MineSweeper.Level level, int rows, int cols, int mineCount){
+		Key key = new Key(seed, level, rows, cols, mineCount);
+		BitBoard template = templates.get(key);
+		if (template != null){
+			hits++;
+			return template;
+		}
+		misses++;
+		template = new BitBoard(rows, cols);
+		MinePlacer.place(template, seed, mineCount);
+		CountBuilder.build(template);
+		templates.put(key, template);
+		bytes += template.layoutBytes();
+		evict();
+		return template;
+	}
+
+	//drop the least recently used templates until both limits hold (the newest always stays)
+	private void evict(){
+		Iterator<Map.Entry<Key, BitBoard>> eldest = templates.entrySet().iterator();
+		while (templates.size() > 1 && (templates.size() > maxEntries || bytes > maxBytes)){
+			bytes -= eldest.next().getValue().layoutBytes();
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * The method that empties the cache; the statistics are kept.
+	 */
+	public synchronized void clear(){
+		templates.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * The method that reports the number of boards kept.
+	 * @return number of boards
+	 */
+	public synchronized int size(){ return templates.size(); }
+
+	/**
+	 * The method that reports the memory held by the boards kept.
+	 * @return number of bytes of layout
+	 */
+	public synchronized long bytes(){ return bytes; }
+
+	/**
+	 * The method that reports the number of lookups that found a board.
+	 * @return number of hits
+	 */
+	public synchronized long hits(){ return hits; }
+
+	/**
+	 * The method that reports the number of lookups that generated a board.
+	 * @return number of misses
+	 */
+	public synchronized long misses(){ return misses; }
+
+	/**
+	 * The method that reports the number of boards dropped to stay within the limits.
+	 * @return number of evictions
+	 */
+	public synchronized long evictions(){ return evictions; }
+
+	@Override
+	public synchronized String toString(){
+		return "boards: " + templates.size() + ", bytes: " + bytes + ", hits: " + hits
+			+ ", misses: " + misses + ", evictions: " + evictions;
+	}
+
+
+	/**
+	 * Cache key: the parameters a board is generated from.
+	 */
+	private static final class Key{
+		private final int seed, rows, cols, mineCount;
+		private final MineSweeper.Level level;
+
+		Key(int seed, MineSweeper.Level level, int rows, int cols, int mineCount){
+			this.seed = seed;
+			this.level = level;
+			this.rows = rows;
+			this.cols = cols;
+			this.mineCount = mineCount;
+		}
+
+		@Override
+		public int hashCode(){ return Objects.hash(seed, level, rows, cols, mineCount); }
+
+		@Override
+		public boolean equals(Object other){
+			if (!(other instanceof Key)){
+				return false;
+			}
+			Key key = (Key)other;
+			return seed == key.seed && level == key.level && rows == key.rows
+				&& cols == key.cols && mineCount == key.mineCount;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves and loads the complete state of a MineSweeper game in a compact binary format.
+ *
+ * Layout (little-endian), version 1:
+ *  - header, 40 bytes: magic "MSWP", version, rows, cols, total mines,
+ *    exposed cells, flagged cells, clicks, status ordinal, and 4 bytes of padding;
+ *  - the mine, visible and flagged bitplanes, each (rows x cols + 63) / 64 longs,
+ *    one bit per cell in row-major order;
+ *  - the neighbor counts, (rows x cols + 15) / 16 longs, 4 bits per cell
+ *    (0xF for a mine, or a count not computed yet on a board with lazy counts),
+ *    so loading does not need to rebuild them.
+ *
+ * Files are written and read through a memory-mapped FileChannel, and the
+ * bitplanes are copied in bulk, so a board of millions of cells takes a few
+ * milliseconds. encode() and decode() work on any ByteBuffer, e.g. to keep
+ * states in memory or inside another file.
+ *
+ * Loading checks the header, and that every count is 0 to 8, or 0xF on every
+ * mine. It trusts the rest of the file: that the counts match the mines, and that
+ * the counters in the header match the bitplanes.
+ */
+public class BoardIO{
+
+	/**
+	 * First 4 bytes of every encoded state: "MSWP".
+	 */
+	public static final int MAGIC = 0x5057534D;
+
+	/**
+	 * Version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Size of the header, in bytes; the bitplanes start 8-byte aligned after it.
+	 */
+	public static final int HEADER_BYTES = 40;
+
+
+	/**
+	 * The method that reports the number of bytes encode() writes for a game.
+	 * @param game the game
+	 * @return number of bytes of the encoded state
+	 */
+	public static int encodedSize(MineSweeper game){
+		return encodedSize(game.rowCount(), game.colCount());
+	}
+
+	private static int encodedSize(int rows, int cols){
+		long words = ((long)rows*cols + 63) / 64;
+		long countWords = ((long)rows*cols + 15) / 16;
+		long bytes = HEADER_BYTES + 8*(3*words + countWords);
+		if (bytes > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Board too large to encode: " + rows + " x " + cols + "!");
+		}
+		return (int)bytes;
+	}
+
+	/**
+	 * The method that writes the state of a game at the position of a buffer,
+	 * and moves the position past it.
+	 * @param game the game to write
+	 * @param out buffer with at least encodedSize(game) bytes remaining
+	 */
+	public static void encode(MineSweeper game, ByteBuffer out){
+		BitBoard board = game.bitBoard();
+		ByteBuffer buffer = out.slice().order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(board.rows());
+		buffer.putInt(board.cols());
+		buffer.putInt(game.mineTotalCount());
+		buffer.putInt(game.clickedCount());
+		buffer.putInt(game.flaggedCount());
+		buffer.putInt(game.clickCount());
+		buffer.putInt(game.status().ordinal());
+		buffer.putInt(0); //padding
+
+		LongBuffer planes = buffer.asLongBuffer();
+		board.putPlanes(planes);
+		out.position(out.position() + HEADER_BYTES + 8*planes.position());
+	}
+
+	/**
+	 * The method that reads a state written by encode() at the position of a buffer,
+	 * and moves the position past it.
+	 * @param in buffer holding an encoded state
+	 * @return a game in exactly the saved state
+	 * @throws IOException if the buffer does not hold a valid state
+	 */
+	public static MineSweeper decode(ByteBuffer in) throws IOException{
+		ByteBuffer buffer = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC){
+			throw new IOException("Not a saved MineSweeper game!");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION){
+			throw new IOException("Unsupported save format version: " + version + "!");
+		}
+		int rows = buffer.getInt();
+		int cols = buffer.getInt();
+		int mineTotal = buffer.getInt();
+		int clicked = buffer.getInt();
+		int flagged = buffer.getInt();
+		int clicks = buffer.getInt();
+		int status = buffer.getInt();
+		buffer.getInt(); //padding
+		if (rows <= 0 || cols <= 0 || (long)rows*cols > Integer.MAX_VALUE
+				|| status < 0 || status >= MineSweeper.Status.values().length){
+			throw new IOException("Corrupt save header: " + rows + " x " + cols + ", status " + status + "!");
+		}
+		int size = encodedSize(rows, cols);
+		if (buffer.capacity() < size){
+			throw new IOException("Truncated save: " + buffer.capacity() + " of " + size + " bytes!");
+		}
+
+		BitBoard board = new BitBoard(rows, cols);
+		board.getPlanes(buffer.asLongBuffer());
+		if (!board.countsWellFormed()){
+			throw new IOException("Corrupt save: invalid neighbor counts!");
+		}
+
+		MineSweeper game = new MineSweeper(board, mineTotal);
+		game.restoreState(clicked, flagged, clicks, MineSweeper.Status.values()[status]);
+		in.position(in.position() + size);
+		return game;
+	}
+
+	/**
+	 * The method that saves a game to a file, replacing it if it exists.
+	 * @param game the game to save
+	 * @param file path of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(MineSweeper game, Path file) throws IOException{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, encodedSize(game));
+			encode(game, buffer);
+			//write the pages out before returning, so a crash cannot leave a torn file
+			buffer.force();
+		}
+	}
+
+	/**
+	 * The method that loads a game saved by save().
+	 * @param file path of the file
+	 * @return a game in exactly the saved state
+	 * @throws IOException if the file cannot be read or does not hold a valid state
+	 */
+	public static MineSweeper load(Path file) throws IOException{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return decode(buffer);
+		}
+	}
+}
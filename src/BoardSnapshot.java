@@ -0,0 +1,129 @@
+/**
+ * A read-only view of the board of a MineSweeper game, for renderers, solvers
+ * and other readers that walk many cells.
+ *
+ * Nothing is copied: the view reads the game's bitplanes directly, by flat index
+ * (row x cols + col) without validating each cell, or 64 cells at a time through
+ * the plane words, so a full walk runs at the speed of the arrays. It keeps the
+ * game's version from when it was taken; every move, undo and new board bumps
+ * that version, and isStale() tells a reader that the cells it sees have changed
+ * since. Taking a new snapshot is cheap, so readers take one per pass.
+ */
+public final class BoardSnapshot{
+
+	private final MineSweeper game;
+	private final BitBoard board;
+	private final long version;
+
+	/**
+	 * Number of words of each bitplane.
+	 */
+	private final int words;
+
+
+	/**
+	 * Constructor. A view of the current board of a game; see MineSweeper.snapshot().
+	 * @param game the game
+	 * @param board its board
+	 * @param version its version now
+	 */
+	BoardSnapshot(MineSweeper game, BitBoard board, long version){
+		this.game = game;
+		this.board = board;
+		this.version = version;
+		words = board.planeWords();
+	}
+
+	/**
+	 * The method that reports the version of the game this view was taken at.
+	 * @return the version
+	 */
+	public long version(){ return version; }
+
+	/**
+	 * The method that reports whether the game has changed since this view was taken.
+	 * @return true if the cells read now may differ from those at version()
+	 */
+	public boolean isStale(){ return game.version() != version; }
+
+	public int rows(){ return board.rows(); }
+
+	public int cols(){ return board.cols(); }
+
+	public int size(){ return board.size(); }
+
+	/**
+	 * The method that returns the flat index of a cell, without validating it.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return row x cols + col
+	 */
+	public int index(int row, int col){ return board.index(row, col); }
+
+	public boolean hasMine(int idx){ return board.hasMine(idx); }
+
+	public boolean isVisible(int idx){ return board.isVisible(idx); }
+
+	public boolean isFlagged(int idx){ return board.isFlagged(idx); }
+
+	/**
+	 * The method that reports the number of mines around a cell.
+	 * @param idx flat index of the cell
+	 * @return the count, -1 for a mine
+	 */
+	public int getCount(int idx){ return board.getCount(idx); }
+
+	/**
+	 * The method that returns the String of a cell, in the same format as Cell.toString().
+	 * @param idx flat index of the cell
+	 * @return a String representation of the cell
+	 */
+	public String cellToString(int idx){ return board.cellToString(idx); }
+
+	/**
+	 * The method that reports the number of words of each bitplane.
+	 * @return (size() + 63) / 64
+	 */
+	public int words(){ return words; }
+
+	/**
+	 * The method that returns the mines of 64 cells; cell idx is bit idx % 64 of word idx / 64.
+	 * @param word index of the word
+	 * @return the mine bits of the word
+	 */
+	public long mineWord(int word){ return board.mineWord(word); }
+
+	/**
+	 * The method that returns the visible bits of 64 cells, laid out as in mineWord().
+	 * @param word index of the word
+	 * @return the visible bits of the word
+	 */
+	public long visibleWord(int word){ return board.visibleWord(word); }
+
+	/**
+	 * The method that returns the flagged bits of 64 cells, laid out as in mineWord().
+	 * @param word index of the word
+	 * @return the flagged bits of the word
+	 */
+	public long flaggedWord(int word){ return board.flaggedWord(word); }
+
+	/**
+	 * The method that finds the next mine, skipping 64 cells at a time.
+	 * @param from flat index to start from
+	 * @return flat index of the first mine at or after from, or -1 if there is none
+	 */
+	public int nextMine(int from){
+		if (from >= board.size()){
+			return -1;
+		}
+		int word = from >>> 6;
+		long bits = board.mineWord(word) & (-1L << from);
+		while (bits == 0){
+			if (++word == words){
+				return -1;
+			}
+			bits = board.mineWord(word);
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+}
@@ -0,0 +1,185 @@
+public class ByteDynArr310 {
+    private byte[] storage;    //underlying array
+    private static final int MINCAP = 2;    //default initial capacity / minimum capacity
+
+    private int size = 0;
+    private int initCap;
+
+    public ByteDynArr310(){
+        //constructor
+        //initial capacity of the array is MINCAP
+        this.initCap = MINCAP;
+        storage = new byte[MINCAP];
+    }
+
+    public ByteDynArr310(int initCap){
+        // Initial capacity of the storage should be initCap.
+        if(initCap < MINCAP) {
+            throw new IllegalArgumentException("Capacity must be at least 2!");
+        }
+        this.initCap = initCap;
+        storage = new byte[initCap];
+    }
+
+    public int size() {
+        //reports current number of elements
+        return size;
+    }
+
+    public int capacity() {
+        //reports max number of elements
+        return initCap;
+    }
+
+    public byte set(int index, byte value) {
+        // Replace's the item at the given index to be the given value.
+        // Return's the old item at that index.
+        // Note: New items cannot be added with this method.
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        byte holder = storage[index];
+        storage[index] = value;
+        return holder;
+    }
+
+    public byte get(int index){
+        // Return's the item at the given index
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        return storage[index];
+    }
+
+    public void add(byte value){
+        // Append's an element to the end of the storage.
+        // Double's the capacity if no space available.
+        if(size == storage.length) {
+            expand();
+        }
+        storage[size] = value;
+        size++;
+    }
+
+    private void expand(){
+        initCap *= 2;
+        byte[] newStorage = new byte[initCap];
+        System.arraycopy(storage, 0, newStorage, 0, size);
+        storage = newStorage;
+    }
+
+    public void insert(int index, byte value){
+        // Insert's the given value at the given index and shift's elements if needed.
+        // If no space available, we grow the storage in the same way as required by add().
+        if(index > size || index < 0){
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        if(size == storage.length){
+            expand();
+        }
+        System.arraycopy(storage, index, storage, index + 1, size - index);
+        storage[index] = value;
+        size++;
+    }
+
+    public byte remove(int index){
+        // Remove's and return's the element at the given index. Shift's elements
+
+        // If the number of elements after removal falls below or at 1/3 of the capacity,
+        // We halve capacity (rounding down) of the storage.
+        // However, capacity does not go below MINCAP.
+        if(index >= size || index < 0){
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        byte holder = storage[index];
+        System.arraycopy(storage, index + 1, storage, index, size - index - 1);
+        size--;
+        if(size <= (initCap/3) && (initCap/2) >= MINCAP){
+            halve();
+        }
+        return holder;
+    }
+
+    private void halve(){
+        initCap /= 2;
+        byte[] newStorage = new byte[initCap];
+        System.arraycopy(storage, 0, newStorage, 0, size);
+        storage = newStorage;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            s.append(storage[i]);
+            if (i<size()-1)
+                s.append(", ");
+        }
+        s.append("]");
+        return s.toString().trim();
+    }
+
+    //Code Testing Below this line
+
+    public String toStringDebug() {
+        //This method is written for debugging purposes
+        //it prints out the ByteDynArr310 details for easy viewing
+        StringBuilder s = new StringBuilder("ByteDynArr310 with " + size()
+            + " items and a capacity of " + capacity() + ":");
+        for (int i = 0; i < size(); i++) {
+            s.append("\n ["+i+"]: " + storage[i]);
+        }
+        return s.toString().trim();
+    }
+
+    public static void main (String args[]){
+        //Sample tests, same as IntDynArr310 with a byte array
+        ByteDynArr310 bda = new ByteDynArr310();
+        if ((bda.size() == 0) && (bda.capacity() == 2)){
+            System.out.println("Yay 1");
+        }
+        //add some numbers at the end
+        for (int i=0; i<3; i++)
+            bda.add((byte)(i*5));
+
+        //checking dynamic array details
+        if (bda.size() == 3 && bda.get(2) == 10 && bda.capacity() == 4){
+            System.out.println("Yay 2");
+        }
+
+        //insert, set, get
+        bda.insert(1,(byte)-10);
+        bda.insert(4,(byte)100);
+        if (bda.set(1,(byte)-20) == -10 && bda.get(2) == 5 && bda.size() == 5
+            && bda.capacity() == 8 ){
+            System.out.println("Yay 3");
+        }
+
+        //toString
+        if (bda.toString().equals("[0, -20, 5, 10, 100]")){
+            System.out.println("Yay 4");
+        }
+
+        //remove
+        if (bda.remove(0) == 0 && bda.remove(1) == 5 && bda.remove(0) == -20 &&
+            bda.get(0) == 10 && bda.size() == 2 && bda.capacity() == 4){
+            System.out.println("Yay 5");
+        }
+        //exception checking
+        try{
+            bda.set(-1,(byte)0);
+        }
+        catch (IndexOutOfBoundsException ex){
+            if (ex.getMessage().equals("Index: -1 out of bounds!")){
+                System.out.println("Yay 6");
+            }
+        }
+
+        //the whole byte range is kept, signed
+        bda.add(Byte.MIN_VALUE);
+        bda.add(Byte.MAX_VALUE);
+        if (bda.toString().equals("[10, 100, -128, 127]") && bda.capacity() == 4){
+            System.out.println("Yay 7");
+        }
+    }
+}
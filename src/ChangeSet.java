@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+public class ChangeSet{
+
+	/**
+	 * Flat indexes of the changed cells, in the order they changed.
+	 */
+	private int[] cells;
+
+	/**
+	 * Number of changed cells.
+	 */
+	private int size;
+
+	/**
+	 * Number of columns of the board, used to turn indexes back into (row,col).
+	 */
+	private int cols;
+
+
+	/**
+	 * Constructor. Creates an empty change set; it grows with the largest move seen.
+	 */
+	public ChangeSet(){
+		cells = new int[16];
+		size = 0;
+		cols = 1;
+	}
+
+	/**
+	 * The method that empties this change set for a new move on a board.
+	 * @param cols number of columns of the board
+	 */
+	public void clear(int cols){
+		this.cols = cols;
+		size = 0;
+	}
+
+	/**
+	 * The method that appends a changed cell.
+	 * @param idx flat index of the cell
+	 */
+	public void add(int idx){
+		if (size == cells.length){
+			cells = Arrays.copyOf(cells, cells.length*2);
+		}
+		cells[size++] = idx;
+	}
+
+	/**
+	 * The method that reports the number of changed cells.
+	 * @return number of changed cells
+	 */
+	public int size(){ return size; }
+
+	/**
+	 * The method that reports the flat index of a changed cell.
+	 * @param i position in the change set, 0 to size()-1
+	 * @return flat index (row x cols + col) of the cell
+	 */
+	public int index(int i){
+		if (i<0 || i>=size){
+			throw new IndexOutOfBoundsException("Index: " + i + " out of bounds!");
+		}
+		return cells[i];
+	}
+
+	/**
+	 * The method that reports the row of a changed cell.
+	 * @param i position in the change set, 0 to size()-1
+	 * @return row index of the cell
+	 */
+	public int row(int i){ return index(i) / cols; }
+
+	/**
+	 * The method that reports the column of a changed cell.
+	 * @param i position in the change set, 0 to size()-1
+	 * @return column index of the cell
+	 */
+	public int col(int i){ return index(i) % cols; }
+
+	@Override
+	public String toString(){
+		StringBuilder s = new StringBuilder("[");
+		for (int i = 0; i < size; i++){
+			s.append("(" + row(i) + "," + col(i) + ")");
+			if (i<size-1)
+				s.append(", ");
+		}
+		s.append("]");
+		return s.toString();
+	}
+}
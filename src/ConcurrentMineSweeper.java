@@ -0,0 +1,332 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A MineSweeper board that many players can play at once, from any threads.
+ *
+ * The mines and counts are placed once (the same as MineSweeper for the same seed)
+ * and only read afterwards. What players change, whether a cell is visible or
+ * flagged, is 2 bits per cell packed 32 cells to a long in an AtomicLongArray, and
+ * every change is one compare-and-set on the word of its cell: a cell is opened,
+ * flagged or unflagged by exactly one player, with no locks. Each player's cascade
+ * opens cells the same way, so cascades can overlap and race with flags safely;
+ * unlike MineSweeper, a cascade leaves flagged cells alone.
+ *
+ * The number of opened cells is an AtomicInteger that each move adds its cells to
+ * once; the move that brings it to the number of safe cells solves the game. Status
+ * changes by compare-and-set too, so the game ends (SOLVED or EXPLODED) exactly
+ * once, and only the move that ended it calls the finish listener. Click and flag
+ * counters are LongAdders. Moves starting after the end change nothing.
+ */
+public class ConcurrentMineSweeper{
+
+	//state bits of a cell
+	private static final long VISIBLE = 1, FLAGGED = 2;
+
+	/**
+	 * Mines and counts; never changed after the constructor.
+	 */
+	private final BitBoard board;
+
+	private final int rowCount, colCount, mineTotalCount;
+
+	/**
+	 * Visible and flagged bits, 2 per cell, 32 cells per word.
+	 */
+	private final AtomicLongArray state;
+
+	private final AtomicInteger clickedCount = new AtomicInteger();
+	private final LongAdder flaggedCount = new LongAdder();
+	private final LongAdder clickCount = new LongAdder();
+	private final AtomicReference<MineSweeper.Status> status = new AtomicReference<>(MineSweeper.Status.INIT);
+
+	/**
+	 * Called once, by the move that ends the game.
+	 */
+	private volatile Consumer<MineSweeper.Status> finishListener;
+
+	/**
+	 * Work queue and opened cells of the moves of each thread.
+	 */
+	private final ThreadLocal<ChangeSet> changes = ThreadLocal.withInitial(ChangeSet::new);
+
+
+	/**
+	 * Constructor. A game of a pre-defined level, with the mines of new MineSweeper(seed, level).
+	 * @param seed seed for the random number sequence
+	 * @param level level of the game, not CUSTOM
+	 */
+	public ConcurrentMineSweeper(int seed, MineSweeper.Level level){
+		this(seed, settings(level));
+	}
+
+	/**
+	 * Constructor. A customized game.
+	 * @param seed seed for the random number sequence
+	 * @param rowCount number of rows
+	 * @param colCount number of columns
+	 * @param mineCount number of mines
+	 */
+	public ConcurrentMineSweeper(int seed, int rowCount, int colCount, int mineCount){
+		this(seed, new int[]{rowCount, colCount, mineCount});
+	}
+
+	private ConcurrentMineSweeper(int seed, int[] settings){
+		rowCount = settings[0];
+		colCount = settings[1];
+		mineTotalCount = settings[2];
+		board = new BitBoard(rowCount, colCount);
+		MinePlacer.place(board, seed, mineTotalCount);
+		CountBuilder.build(board);
+		state = new AtomicLongArray((int)(((long)rowCount*colCount + 31) / 32));
+	}
+
+	private static int[] settings(MineSweeper.Level level){
+		if (level == MineSweeper.Level.CUSTOM){
+			throw new IllegalArgumentException("Customized games need more parameters!");
+		}
+		return MineSweeper.levelSettings(level);
+	}
+
+	/**
+	 * The method that sets the listener called when the game ends, by the thread whose move ended it.
+	 * @param listener called with SOLVED or EXPLODED, or null for none
+	 */
+	public void setFinishListener(Consumer<MineSweeper.Status> listener){
+		finishListener = listener;
+	}
+
+	public int rowCount(){ return rowCount; }
+
+	public int colCount(){ return colCount; }
+
+	/**
+	 * The method that reports whether a cell has a mine.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell has a mine; false for an invalid cell
+	 */
+	public boolean hasMine(int row, int col){
+		return board.isValidCell(row, col) && board.hasMine(board.index(row, col));
+	}
+
+	/**
+	 * The method that reports the number of mines around a cell.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return the count, -1 for a mine, -2 for an invalid cell
+	 */
+	public int getCount(int row, int col){
+		return board.isValidCell(row, col) ? board.getCount(board.index(row, col)) : -2;
+	}
+
+	/**
+	 * The method that reports whether a cell is opened.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell is visible
+	 */
+	public boolean isVisible(int row, int col){
+		return board.isValidCell(row, col) && (cellState(board.index(row, col)) & VISIBLE) != 0;
+	}
+
+	/**
+	 * The method that reports whether a cell is flagged.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell is flagged
+	 */
+	public boolean isFlagged(int row, int col){
+		return board.isValidCell(row, col) && (cellState(board.index(row, col)) & FLAGGED) != 0;
+	}
+
+	/**
+	 * The method that reports the number of opened cells.
+	 * @return number of visible cells
+	 */
+	public int clickedCount(){ return clickedCount.get(); }
+
+	/**
+	 * The method that reports the number of flagged cells; exact once no move is running.
+	 * @return number of flagged cells
+	 */
+	public int flaggedCount(){ return flaggedCount.intValue(); }
+
+	/**
+	 * The method that reports the number of clicks that opened a cell; exact once no move is running.
+	 * @return number of clicks
+	 */
+	public int clickCount(){ return clickCount.intValue(); }
+
+	public int mineLeft(){ return mineTotalCount - flaggedCount(); }
+
+	public MineSweeper.Status status(){ return status.get(); }
+
+	public String getStatus(){ return MineSweeper.Status_STRINGS[status.get().ordinal()]; }
+
+	public boolean isSolved(){ return status.get() == MineSweeper.Status.SOLVED; }
+
+	public boolean isExploded(){ return status.get() == MineSweeper.Status.EXPLODED; }
+
+	/**
+	 * The method that opens a cell, and the zero-count area around it.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return -2 if nothing was opened, -1 if a mine exploded, else the count of the cell
+	 */
+	public int clickAt(int row, int col){
+		return clickAt(row, col, changes.get());
+	}
+
+	/**
+	 * The method that opens a cell, and the zero-count area around it.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @param opened filled with the cells this move opened; owned by the calling thread
+	 * @return -2 if nothing was opened, -1 if a mine exploded, else the count of the cell
+	 */
+	public int clickAt(int row, int col, ChangeSet opened){
+		opened.clear(colCount);
+		if (!board.isValidCell(row, col) || isOver()){
+			return -2;
+		}
+		int idx = board.index(row, col);
+		if (!open(idx)){
+			return -2;
+		}
+		clickCount.increment();
+		status.compareAndSet(MineSweeper.Status.INIT, MineSweeper.Status.INGAME);
+		opened.add(idx);
+
+		if (board.hasMine(idx)){
+			clickedCount.incrementAndGet();
+			finish(MineSweeper.Status.EXPLODED);
+			return -1;
+		}
+		if (board.getCount(idx) == 0){
+			expand(opened);
+		}
+		if (clickedCount.addAndGet(opened.size()) == rowCount*colCount - mineTotalCount){
+			finish(MineSweeper.Status.SOLVED);
+		}
+		return board.getCount(idx);
+	}
+
+	/**
+	 * The method that flags a hidden cell.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell is flagged now; false if it is visible or the game is over
+	 */
+	public boolean flagAt(int row, int col){
+		if (!board.isValidCell(row, col)){
+			throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
+		}
+		if (isOver()){
+			return false;
+		}
+		int idx = board.index(row, col);
+		int word = idx >>> 5;
+		int shift = (idx & 31) << 1;
+		long current;
+		do {
+			current = state.get(word);
+			long cell = current >>> shift & 3;
+			if (cell == VISIBLE){
+				return false;
+			}
+			if (cell == FLAGGED){
+				return true;
+			}
+		} while (!state.compareAndSet(word, current, current | FLAGGED << shift));
+		flaggedCount.increment();
+		status.compareAndSet(MineSweeper.Status.INIT, MineSweeper.Status.INGAME);
+		return true;
+	}
+
+	/**
+	 * The method that removes the flag of a cell.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the flag was removed
+	 */
+	public boolean unFlagAt(int row, int col){
+		if (!board.isValidCell(row, col) || isOver()){
+			return false;
+		}
+		int idx = board.index(row, col);
+		int word = idx >>> 5;
+		int shift = (idx & 31) << 1;
+		long current;
+		do {
+			current = state.get(word);
+			if ((current >>> shift & 3) != FLAGGED){
+				return false;
+			}
+		} while (!state.compareAndSet(word, current, current & ~(FLAGGED << shift)));
+		flaggedCount.decrement();
+		return true;
+	}
+
+	//open the hidden neighbors of the zero-count cells queued in opened, and of the ones they open
+	private void expand(ChangeSet opened){
+		for (int head = 0; head < opened.size(); head++){
+			int idx = opened.index(head);
+			if (board.getCount(idx) != 0){
+				continue;
+			}
+			int row = idx / colCount;
+			int col = idx % colCount;
+			for (int i = Math.max(0, row-1); i <= Math.min(rowCount-1, row+1); i++){
+				for (int j = Math.max(0, col-1); j <= Math.min(colCount-1, col+1); j++){
+					int nbr = i*colCount + j;
+					//a neighbor of a zero-count cell has no mine; whoever opens it expands it
+					if (open(nbr)){
+						opened.add(nbr);
+					}
+				}
+			}
+		}
+	}
+
+	//mark a hidden, unflagged cell visible; false if it is visible or flagged, e.g. by another player
+	private boolean open(int idx){
+		int word = idx >>> 5;
+		int shift = (idx & 31) << 1;
+		long current;
+		do {
+			current = state.get(word);
+			if ((current >>> shift & 3) != 0){
+				return false;
+			}
+		} while (!state.compareAndSet(word, current, current | VISIBLE << shift));
+		return true;
+	}
+
+	private long cellState(int idx){
+		return state.get(idx >>> 5) >>> ((idx & 31) << 1) & 3;
+	}
+
+	private boolean isOver(){
+		MineSweeper.Status s = status.get();
+		return s == MineSweeper.Status.SOLVED || s == MineSweeper.Status.EXPLODED;
+	}
+
+	//end the game, unless another move already did
+	private void finish(MineSweeper.Status end){
+		MineSweeper.Status s;
+		do {
+			s = status.get();
+			if (s == MineSweeper.Status.SOLVED || s == MineSweeper.Status.EXPLODED){
+				return;
+			}
+		} while (!status.compareAndSet(s, end));
+		Consumer<MineSweeper.Status> listener = finishListener;
+		if (listener != null){
+			listener.accept(end);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class CountBuilder{
+
+	/**
+	 * Boards with at least this many cells are split into row bands built in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+	/**
+	 * Band heights are a multiple of this, so that with any column count a band starts
+	 * on a fresh word of packed counts and no two bands write to the same word.
+	 */
+	private static final int BAND_ALIGN = 16;
+
+
+	/**
+	 * The method that computes and stores the neighbor count of every cell in one pass.
+	 * Mine cells get -1. Large boards are split into row bands across cores.
+	 * @param board the board whose counts are (re)built from its mines
+	 */
+	public static void build(BitBoard board){
+		int rows = board.rows();
+		if (board.size() < PARALLEL_THRESHOLD || rows < 2*BAND_ALIGN){
+			buildRows(board, 0, rows);
+			return;
+		}
+		board.ownLayout(); //before the bands write to it concurrently
+		int cores = Runtime.getRuntime().availableProcessors();
+		//a few bands per core so uneven cores still finish together
+		int bandRows = ((rows + cores*4 - 1) / (cores*4) + BAND_ALIGN - 1) / BAND_ALIGN * BAND_ALIGN;
+		int bands = (rows + bandRows - 1) / bandRows;
+		IntStream.range(0, bands).parallel()
+			.forEach(band -> buildRows(board, band*bandRows, Math.min(rows, (band+1)*bandRows)));
+	}
+
+	/**
+	 * The method that computes and stores the neighbor counts of rows [rowFrom, rowTo).
+	 * It keeps a sliding window of three rows of horizontal mine sums, so each
+	 * mine bit is read once per row window instead of nine times per cell.
+	 * @param board the board to update
+	 * @param rowFrom first row to build
+	 * @param rowTo one past the last row to build
+	 */
+	public static void buildRows(BitBoard board, int rowFrom, int rowTo){
+		int rows = board.rows();
+		int cols = board.cols();
+		int[] above = new int[cols];
+		int[] current = new int[cols];
+		int[] below = new int[cols];
+
+		//counts are packed 16 to a word and stored a word at a time
+		long word = 0;
+		long mask = 0;
+		int idx = rowFrom*cols;
+
+		rowSums(board, rowFrom-1, above);
+		rowSums(board, rowFrom, current);
+		for (int row=rowFrom; row<rowTo; row++){
+			rowSums(board, row+1, below);
+			for (int col=0; col<cols; col++, idx++){
+				//0xF is stored for a mine
+				long nibble = board.hasMine(idx) ? 0xF : above[col] + current[col] + below[col];
+				int shift = (idx & 15)<<2;
+				word |= nibble<<shift;
+				mask |= 0xFL<<shift;
+				if ((idx & 15) == 15){
+					board.setCountWord(idx>>>4, word, mask);
+					word = 0;
+					mask = 0;
+				}
+			}
+			//slide the window down one row
+			int[] recycled = above;
+			above = current;
+			current = below;
+			below = recycled;
+		}
+		if (mask != 0){
+			board.setCountWord((idx-1)>>>4, word, mask);
+		}
+	}
+
+	//fill sums[col] with the number of mines in (row, col-1..col+1); all zero off the board
+	private static void rowSums(BitBoard board, int row, int[] sums){
+		int cols = sums.length;
+		if (row < 0 || row >= board.rows()){
+			Arrays.fill(sums, 0);
+			return;
+		}
+		int base = row*cols;
+		int left = 0;
+		int mid = board.hasMine(base) ? 1 : 0;
+		for (int col=0; col<cols; col++){
+			int right = col+1 < cols && board.hasMine(base+col+1) ? 1 : 0;
+			sums[col] = left + mid + right;
+			left = mid;
+			mid = right;
+		}
+	}
+}
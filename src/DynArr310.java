@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 public class DynArr310<T> {
     private T[] storage;    //underlying array
     private static final int MINCAP = 2;    //default initial capacity / minimum capacity
@@ -74,27 +76,36 @@ public class DynArr310<T> {
             throw new IllegalArgumentException("Null values not accepted!");
         }
         //Doubles the size of the array if its full
-        //Makes sure that the capacity never grows beyond the Max Value(Max Capacity)
-        if(size == storage.length && (storage.length*2) <= Integer.MAX_VALUE) {
-            expand(storage);
+        if(size == storage.length) {
+            ensureCapacity(size + 1);
         }
         storage[size] = value;
         size++;
         
     }
 
+    public void addAll(DynArr310<? extends T> values){
+        // Append's all elements of values to the end of the storage, in order.
+        // Grows the storage at most once.
+        insertAll(size, values);
+    }
 
-    private T[] expand(T[] storage){
-        initCap*=2;
-        @SuppressWarnings("unchecked")
-		T[] newStorage = (T[]) new Object[size*2];
-            
-        for(int i = 0; i<size; i++) {
-            newStorage[i] = storage[i];
+    public void ensureCapacity(int minCapacity){
+        // Make's sure the storage can hold minCapacity elements without growing again.
+        // Capacity keeps doubling as in add(), but only one new array is created.
+        if(minCapacity <= storage.length) {
+            return;
         }
-            
-        this.storage = newStorage;
-        return storage;
+        long newCap = storage.length;
+        while(newCap < minCapacity) {
+            newCap *= 2;
+        }
+        resize((int) Math.min(newCap, Integer.MAX_VALUE));
+    }
+
+    private void resize(int newCap){
+        initCap = newCap;
+        storage = Arrays.copyOf(storage, newCap);
     }
     
     public void insert(int index, T value){
@@ -107,20 +118,42 @@ public class DynArr310<T> {
         if(value == null) {
             throw new IllegalArgumentException("Null values not accepted!");
         }else if(size == storage.length){
-            expand(storage);
-        }
-        int i = index;
-        T holder = null;
-        while(storage[i] != null){
-            holder = storage[i];
-            storage[i] = value;
-            value = holder;
-            i++;
+            ensureCapacity(size + 1);
         }
-        storage[i] = value;
+        System.arraycopy(storage, index, storage, index + 1, size - index);
+        storage[index] = value;
         size++;
                 
     }
+
+    public void insertAll(int index, DynArr310<? extends T> values){
+        // Insert's all elements of values at the given index, in order,
+        // shifting the elements after index once for the whole block.
+        // Grows the storage at most once.
+        
+        if(index > size || index < 0){
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        if(values == null) {
+            throw new IllegalArgumentException("Null values not accepted!");
+        }
+        int count = values.size;
+        if(count == 0) {
+            return;
+        }
+        ensureCapacity(size + count);
+        System.arraycopy(storage, index, storage, index + count, size - index);
+        //values may be this array: its elements before index stayed in place,
+        //and those from index on moved up by count
+        if(values == this) {
+            System.arraycopy(storage, 0, storage, index, index);
+            System.arraycopy(storage, index + count, storage, index + index, count - index);
+        }
+        else {
+            System.arraycopy(values.storage, 0, storage, index, count);
+        }
+        size += count;
+    }
     
     
     public T remove(int index){
@@ -130,34 +163,54 @@ public class DynArr310<T> {
         // We halve capacity (rounding down) of the storage.
         // However, capacity does not go below MINCAP.
     
-        if(index > size || index < 0){
-            throw new IndexOutOfBoundsException("Index: \" + index + \" out of bounds!");
-        }
-        int i = index;
-        T holder = storage[i];
-        T next = null;
-        while(i+1 < size){
-            next = storage[i+1];
-            storage[i] = next;
-            i++;
-        }
-        storage[i] = null;
-        size--;
+        if(index >= size || index < 0){
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        T holder = storage[index];
+        System.arraycopy(storage, index + 1, storage, index, size - index - 1);
+        storage[--size] = null;
         if(size <= (initCap/3) && (initCap/2) >= MINCAP){
-            halve(storage);
+            resize(initCap/2);
         }
         return holder;
                         
     }
 
-    private void halve(T[] storage){
-        initCap /=2;
-        @SuppressWarnings("unchecked")
-		T[] newStorage = (T[]) new Object[initCap];
-        for(int i = 0; i<size;i++){
-            newStorage[i] = storage[i];
+    public void removeRange(int from, int to){
+        // Remove's the elements from index from (inclusive) to index to (exclusive),
+        // shifting the elements after them once for the whole block.
+        // Capacity shrinks as if the elements were removed one by one, with at most one new array.
+        
+        if(from < 0 || to > size || from > to){
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ") out of bounds!");
+        }
+        if(from == to) {
+            return;
+        }
+        System.arraycopy(storage, to, storage, from, size - to);
+        Arrays.fill(storage, size - (to - from), size, null);
+        
+        // one removal halves at most once, checked at the size it leaves
+        int newCap = initCap;
+        for(int left = size - 1; left >= size - (to - from); left--){
+            if(left <= (newCap/3) && (newCap/2) >= MINCAP){
+                newCap /= 2;
+            }
+        }
+        size -= to - from;
+        if(newCap != initCap) {
+            resize(newCap);
         }
-        this.storage = newStorage; 
+    }
+
+    public void copyTo(int from, int to, Object[] dest, int destPos){
+        // Copy's the elements from index from (inclusive) to index to (exclusive)
+        // into dest, starting at destPos, as one block copy.
+        
+        if(from < 0 || to > size || from > to){
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + ") out of bounds!");
+        }
+        System.arraycopy(storage, from, dest, destPos, to - from);
     }
     
 
@@ -244,5 +297,38 @@ public class DynArr310<T> {
             }
         }
         
+        //bulk insert and add: one shift, one resize
+        DynArr310<String> more = new DynArr310<>();
+        more.add("x");
+        more.add("y");
+        more.add("w");
+        letters.insertAll(1, more);
+        letters.addAll(letters);
+        if (letters.toString().equals("[b, x, y, w, z, b, x, y, w, z]") &&
+            letters.size() == 10 && letters.capacity() == 12){
+            System.out.println("Yay 7");
+        }
+        
+        //bulk remove: capacity shrinks as if removed one by one
+        letters.removeRange(1, 9);
+        if (letters.toString().equals("[b, z]") && letters.capacity() == 3){
+            System.out.println("Yay 8");
+        }
+        
+        //a single remove halves capacity at most once
+        DynArr310<Integer> wide = new DynArr310<>(64);
+        wide.add(1);
+        wide.remove(0);
+        if (wide.size() == 0 && wide.capacity() == 32){
+            System.out.println("Yay 9");
+        }
+        
+        //block copy out of the array
+        Object[] out = new Object[4];
+        letters.copyTo(0, 2, out, 1);
+        if (out[0] == null && out[1].equals("b") && out[2].equals("z") && out[3] == null){
+            System.out.println("Yay 10");
+        }
+        
     }
 }
\ No newline at end of file
@@ -1,64 +1,76 @@
+import java.util.Arrays;
+
 public class DynGrid310<T> {
-	private DynArr310<DynArr310<T>> storage; ////underlying 2-d array for storage	
+	// All cells live in one flat array. Physical row p occupies
+	// data[p*stride .. p*stride+stride), and a cell is at data[p*stride + q]
+	// for physical column q. Logical rows/columns map to physical ones through
+	// rowMap/colMap, so inserting a row or column only shifts the (int) map and
+	// writes the new cells into a spare physical slot; no existing cell moves.
+	private Object[] data;           //underlying flat array for storage
+	private int stride;              //physical columns per physical row
+	private int rowCap;              //physical rows that fit in data
+	private int usedRows, usedCols;  //physical rows / columns handed out so far
+	private IntDynArr310 rowMap;     //logical row -> physical row
+	private IntDynArr310 colMap;     //logical column -> physical column
+	private IntDynArr310 freeRows;   //physical rows released by removeRow, for reuse
+	private IntDynArr310 freeCols;   //physical columns released by removeCol, for reuse
+	private boolean colsInOrder;     //colMap[i] == i for every column, so a row is one block
 	
 	public DynGrid310(){
 		// create's an empty grid (no content)	
-		this.storage = new DynArr310<>();
+		clear();
+	}
+	
+	private void clear(){
+		// drop's all content and storage
+		data = null;
+		stride = 0;
+		rowCap = 0;
+		usedRows = 0;
+		usedCols = 0;
+		rowMap = new IntDynArr310();
+		colMap = new IntDynArr310();
+		freeRows = new IntDynArr310();
+		freeCols = new IntDynArr310();
+		colsInOrder = true;
 	}
+	
 	public int getNumRow() {
 		// report's number of rows with contents in the grid
-		return storage.size();
+		return rowMap.size();
 	}
 	
 	public int getNumCol() {
 		// report's number of columns with contents in the grid
-		if(storage.size() == 0) {
-			return 0;
-		}
-		return storage.get(0).size();
+		return colMap.size();
 	}
 	
 	public boolean isValidCell(int row, int col){
 	// check's whether (row,col) corresponds to a cell with content
-		if( (row < 0 || row > getNumRow()) || (col<0 || col > getNumCol()) || (storage.get(row).get(col) == null)) {
-			return false;
-		}
-		else {
-			return true;
-		}
+		return row >= 0 && row < getNumRow() && col >= 0 && col < getNumCol();
 	}
 	
+	@SuppressWarnings("unchecked")
 	public T get(int row, int col){
 		// report's cell value at (row, col)
-
-		if(row <0 || row >= storage.size()){
+		if(!isValidCell(row, col)){
 			throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
 		}
-
-		DynArr310<T> rowArray = storage.get(row);
-		if(rowArray.size() <= col || col < 0){
-			throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
-		}
-
-		T val = rowArray.get(col);
-		if(val == null){
-			throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
-		}else{
-			return storage.get(row).get(col);
-		}
+		return (T) data[rowMap.get(row)*stride + colMap.get(col)];
 	}
 	
+	@SuppressWarnings("unchecked")
 	public T set(int row, int col, T value){
 		// change's cell value at (row, col) to be value, and return's the old cell value
-		T holder = null;
-		if(storage.get(row).get(col) == null) {
-			throw new IllegalArgumentException("Null values not accepted");
+		if(!isValidCell(row, col)){
+			throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
 		}
-		else {
-			holder = storage.get(row).get(col);
-			storage.get(row).set(col, value);
+		if(value == null) {
+			throw new IllegalArgumentException("Null values not accepted");
 		}
-		
+		int pos = rowMap.get(row)*stride + colMap.get(col);
+		T holder = (T) data[pos];
+		data[pos] = value;
 		return holder;
 	}
 	
@@ -74,25 +86,49 @@ public class DynGrid310<T> {
 			return false;
 		}
 		
-		if(storage.size()== 0 && index==0) {
-			storage.add(newRow);
-			return true;
+		if(getNumRow() == 0) {
+			//first row decides the number of columns
+			clear();
+			stride = Math.max(2, newRow.size());
+			rowCap = 2;
+			data = new Object[rowCap*stride];
+			for(int col = 0; col < newRow.size(); col++) {
+				colMap.add(usedCols++);
+			}
 		}
 		
 		if(newRow.size() != getNumCol()) {
 			return false;
 		}
 		
-		if(index == getNumRow()) {
-			storage.add(newRow);
-		}else {
-			storage.insert(index, newRow);
+		int phys = newRowSlot();
+		int base = phys*stride;
+		if(colsInOrder) {
+			//one block copy for the whole row
+			newRow.copyTo(0, newRow.size(), data, base);
 		}
-		
+		else {
+			for(int col = 0; col < newRow.size(); col++) {
+				data[base + colMap.get(col)] = newRow.get(col);
+			}
+		}
+		rowMap.insert(index, phys);
 		return true;
 		
 	}
 	
+	private int newRowSlot(){
+		// return's a free physical row, doubling the rows of storage if there is none
+		if(freeRows.size() > 0) {
+			return freeRows.remove(freeRows.size() - 1);
+		}
+		if(usedRows == rowCap) {
+			rowCap *= 2;
+			data = Arrays.copyOf(data, rowCap*stride);
+		}
+		return usedRows++;
+	}
+	
 	public boolean addCol(int index, DynArr310<T> newCol){
 		// insert's newCol as a new column into the grid at index, shifting cols if needed
 		// a new column can be appended
@@ -107,38 +143,72 @@ public class DynGrid310<T> {
 			return false;
 		}
 		
-		for(int i = 0; i < getNumRow();i++) {
-			DynArr310<T> row = storage.get(i);
-			row.insert(index, newCol.get(i));
+		int phys = newColSlot();
+		for(int row = 0; row < getNumRow(); row++) {
+			data[rowMap.get(row)*stride + phys] = newCol.get(row);
 		}
-		
+		//only an append into the next physical column keeps the order
+		colsInOrder = colsInOrder && index == getNumCol() && phys == index;
+		colMap.insert(index, phys);
 		return true;
 	}
 	
+	private int newColSlot(){
+		// return's a free physical column, doubling the row width of storage if there is none
+		if(freeCols.size() > 0) {
+			return freeCols.remove(freeCols.size() - 1);
+		}
+		if(usedCols == stride) {
+			int newStride = stride*2;
+			Object[] newData = new Object[rowCap*newStride];
+			for(int p = 0; p < usedRows; p++) {
+				System.arraycopy(data, p*stride, newData, p*newStride, stride);
+			}
+			data = newData;
+			stride = newStride;
+		}
+		return usedCols++;
+	}
+	
 	public DynArr310<T> removeRow(int index){
 		// remove's and return's a row at index, shift rows as needed to remove the gap		
 				
-		if(index < 0|| index > getNumRow()) {
+		if(index < 0|| index >= getNumRow()) {
 			return null;
 		}
-		DynArr310<T> holderRow = storage.get(index);
-		storage.remove(index);
-	
+		DynArr310<T> holderRow = new DynArr310<>(Math.max(2, getNumCol()));
+		for(int col = 0; col < getNumCol(); col++) {
+			holderRow.add(get(index, col));
+		}
+		int phys = rowMap.remove(index);
+		Arrays.fill(data, phys*stride, phys*stride + stride, null);
+		freeRows.add(phys);
+		if(getNumRow() == 0) {
+			clear();
+		}
 		return holderRow;
 	}
+	
 	public DynArr310<T> removeCol(int index){
 		// remove's and return's a column at index, shift cols as needed to remove the gap
 		if(index<0 || index >= getNumCol()) {
 			return null;
 		}
-		DynArr310<T> removedCol = new DynArr310<>();
-		for(int i = 0; i< getNumRow();i++) {
-			T val = storage.get(i).remove(index);
+		DynArr310<T> removedCol = new DynArr310<>(Math.max(2, getNumRow()));
+		int phys = colMap.get(index);
+		for(int row = 0; row < getNumRow(); row++) {
+			int pos = rowMap.get(row)*stride + phys;
+			@SuppressWarnings("unchecked")
+			T val = (T) data[pos];
 			removedCol.add(val);
-			if(storage.get(i).size() == 0) {
-				storage.remove(i);
-				i--;
-			}
+			data[pos] = null;
+		}
+		colsInOrder = colsInOrder && index == getNumCol() - 1;
+		colMap.remove(index);
+		freeCols.add(phys);
+		//a grid without columns has no rows either
+		if(getNumCol() == 0) {
+			clear();
 		}
 		return removedCol;
 		
@@ -0,0 +1,490 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * An endless MineSweeper board that grows as the player explores.
+ *
+ * The plane is cut into CHUNK x CHUNK chunks. The mines of a chunk come only from a
+ * hash of (seed, chunk row, chunk column), so a chunk is built when it is first
+ * touched, and can be dropped and built again exactly the same later. A chunk keeps
+ * its mines, visible and flagged cells as one long per row. Its neighbor counts are
+ * computed the first time one of them is read, using the edge mines of the 8 chunks
+ * around it (generated from their hash when those chunks are not loaded).
+ *
+ * Loaded chunks are found in a hash map keyed by (chunk row, chunk column), so
+ * chunks far apart cost no more than chunks side by side. Once more than
+ * maxChunks chunks are loaded, the ones far from the last move are evicted:
+ * untouched chunks are dropped from the map, touched ones only drop their counts.
+ * Memory so follows the explored area, not the size of the plane.
+ *
+ * Rows and columns can be any int, including negative ones. The cell (0,0) and its
+ * neighbors never hold a mine, so clicking (0,0) first always opens an area. A click
+ * opens at most about maxCascade cells; clicking an opened zero-count cell at the
+ * edge of a cut cascade goes on from there. The game cannot be solved, only exploded.
+ */
+public class EndlessBoard{
+
+	/**
+	 * Side of a chunk, in cells: a chunk row is one long.
+	 */
+	public static final int CHUNK = 64;
+
+	/**
+	 * Number of chunks loaded before far ones are evicted, unless given.
+	 */
+	public static final int DEFAULT_MAX_CHUNKS = 1024;
+
+	/**
+	 * Most cells a click opens, unless given.
+	 */
+	public static final int DEFAULT_MAX_CASCADE = 1 << 16;
+
+	/**
+	 * Chunks kept when evicting after a move: those within this many chunks of it.
+	 */
+	private static final int KEEP_RADIUS = 2;
+
+	/**
+	 * Seed of every chunk's mines.
+	 */
+	private final int seed;
+
+	/**
+	 * Number of mines in each chunk (fewer in the chunks around (0,0)).
+	 */
+	private final int minesPerChunk;
+
+	/**
+	 * Limits on loaded chunks and on the cells opened by one click.
+	 */
+	private final int maxChunks, maxCascade;
+
+	/**
+	 * Loaded chunks by key(chunk row, chunk column).
+	 */
+	private final HashMap<Long, Chunk> chunks = new HashMap<>();
+
+	/**
+	 * Key and chunk of the last lookup: a cascade reads the same chunk many times in a row.
+	 */
+	private long lastKey;
+	private Chunk lastChunk;
+
+	/**
+	 * Number of loaded chunks at which far ones are evicted next.
+	 */
+	private int trimAt;
+
+	/**
+	 * Cells changed by the last move, as row << 32 | col; also the cascade work queue.
+	 */
+	private LongDynArr310 changes = new LongDynArr310();
+
+	private int clickedCount, flaggedCount, clickCount;
+	private MineSweeper.Status status = MineSweeper.Status.INIT;
+
+
+	/**
+	 * Constructor.
+	 * @param seed seed of the mines
+	 * @param minesPerChunk number of mines in each CHUNK x CHUNK chunk
+	 */
+	public EndlessBoard(int seed, int minesPerChunk){
+		this(seed, minesPerChunk, DEFAULT_MAX_CHUNKS, DEFAULT_MAX_CASCADE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param seed seed of the mines
+	 * @param minesPerChunk number of mines in each CHUNK x CHUNK chunk
+	 * @param maxChunks number of chunks loaded before far ones are evicted
+	 * @param maxCascade most cells a click opens
+	 */
+	public EndlessBoard(int seed, int minesPerChunk, int maxChunks, int maxCascade){
+		if (minesPerChunk < 0 || minesPerChunk > CHUNK*CHUNK - 9){
+			throw new IllegalArgumentException("Invalid mines per chunk: " + minesPerChunk + "!");
+		}
+		if (maxChunks <= 0 || maxCascade <= 0){
+			throw new IllegalArgumentException("Invalid limits: " + maxChunks + " chunks, " + maxCascade + " cells!");
+		}
+		this.seed = seed;
+		this.minesPerChunk = minesPerChunk;
+		this.maxChunks = maxChunks;
+		this.maxCascade = maxCascade;
+		trimAt = maxChunks;
+	}
+
+	/**
+	 * The method that reports whether a cell has a mine.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell has a mine
+	 */
+	public boolean hasMine(int row, int col){
+		return (chunk(row, col).mines[row & (CHUNK-1)] & (1L << col)) != 0;
+	}
+
+	/**
+	 * The method that reports the number of mines around a cell.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return number of neighbors with a mine, or -1 if the cell has a mine
+	 */
+	public int getCount(int row, int col){
+		Chunk chunk = chunk(row, col);
+		return counts(chunk, row >> 6, col >> 6)[(row & (CHUNK-1))*CHUNK + (col & (CHUNK-1))];
+	}
+
+	/**
+	 * The method that reports whether a cell is opened.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell is visible
+	 */
+	public boolean isVisible(int row, int col){
+		Chunk chunk = peek(row >> 6, col >> 6);
+		return chunk != null && (chunk.visible[row & (CHUNK-1)] & (1L << col)) != 0;
+	}
+
+	/**
+	 * The method that reports whether a cell is flagged.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell is flagged
+	 */
+	public boolean isFlagged(int row, int col){
+		Chunk chunk = peek(row >> 6, col >> 6);
+		return chunk != null && (chunk.flagged[row & (CHUNK-1)] & (1L << col)) != 0;
+	}
+
+	/**
+	 * The method that opens a cell, and the zero-count area around it, up to maxCascade cells.
+	 * Clicking an opened zero-count cell with hidden neighbors goes on with its cascade.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return -2 if nothing changed, -1 if a mine exploded, else the count of the cell
+	 */
+	public int clickAt(int row, int col){
+		changes = new LongDynArr310();
+		Chunk chunk = chunk(row, col);
+		int count = getCount(row, col);
+		long bit = 1L << col;
+		int r = row & (CHUNK-1);
+		if ((chunk.flagged[r] & bit) != 0){
+			return -2;
+		}
+		if ((chunk.visible[r] & bit) != 0){
+			if (count != 0){
+				return -2;
+			}
+			openNeighbors(row, col);
+			if (changes.size() == 0){
+				return -2;
+			}
+		}
+		else {
+			open(chunk, row, col);
+		}
+		clickCount++;
+
+		if (count == -1){
+			status = MineSweeper.Status.EXPLODED;
+		}
+		else {
+			for (int head = 0; head < changes.size() && changes.size() < maxCascade; head++){
+				long cell = changes.get(head);
+				if (getCount((int)(cell >> 32), (int)cell) == 0){
+					openNeighbors((int)(cell >> 32), (int)cell);
+				}
+			}
+			if (status != MineSweeper.Status.EXPLODED){
+				status = MineSweeper.Status.INGAME;
+			}
+		}
+		clickedCount += changes.size();
+		trim(row, col);
+		return count;
+	}
+
+	/**
+	 * The method that flags a hidden cell.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell is flagged now; false if it is visible
+	 */
+	public boolean flagAt(int row, int col){
+		changes = new LongDynArr310();
+		Chunk chunk = chunk(row, col);
+		long bit = 1L << col;
+		int r = row & (CHUNK-1);
+		if ((chunk.visible[r] & bit) != 0){
+			return false;
+		}
+		if ((chunk.flagged[r] & bit) == 0){
+			chunk.flagged[r] |= bit;
+			chunk.marked++;
+			flaggedCount++;
+			changes.add(key(row, col));
+		}
+		trim(row, col);
+		return true;
+	}
+
+	/**
+	 * The method that removes the flag of a cell.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return true if the cell was flagged
+	 */
+	public boolean unFlagAt(int row, int col){
+		changes = new LongDynArr310();
+		Chunk chunk = peek(row >> 6, col >> 6);
+		long bit = 1L << col;
+		int r = row & (CHUNK-1);
+		if (chunk == null || (chunk.flagged[r] & bit) == 0){
+			return false;
+		}
+		chunk.flagged[r] &= ~bit;
+		chunk.marked--;
+		flaggedCount--;
+		changes.add(key(row, col));
+		return true;
+	}
+
+	/**
+	 * The method that reports the number of cells changed by the last move.
+	 * @return number of cells
+	 */
+	public int lastChangeCount(){ return changes.size(); }
+
+	/**
+	 * The method that reports the row of a cell changed by the last move.
+	 * @param k position of the cell, 0 to lastChangeCount() - 1
+	 * @return row of the cell
+	 */
+	public int lastChangeRow(int k){ return (int)(changes.get(k) >> 32); }
+
+	/**
+	 * The method that reports the column of a cell changed by the last move.
+	 * @param k position of the cell, 0 to lastChangeCount() - 1
+	 * @return column of the cell
+	 */
+	public int lastChangeCol(int k){ return (int)changes.get(k); }
+
+	/**
+	 * The method that reports the number of cells opened.
+	 * @return number of visible cells
+	 */
+	public int clickedCount(){ return clickedCount; }
+
+	/**
+	 * The method that reports the number of cells flagged.
+	 * @return number of flagged cells
+	 */
+	public int flaggedCount(){ return flaggedCount; }
+
+	/**
+	 * The method that reports the number of clicks that opened something.
+	 * @return number of clicks
+	 */
+	public int clickCount(){ return clickCount; }
+
+	/**
+	 * The method that reports the status: INIT, INGAME or EXPLODED.
+	 * @return game status
+	 */
+	public MineSweeper.Status status(){ return status; }
+
+	/**
+	 * The method that reports whether a mine was opened.
+	 * @return true if the game exploded
+	 */
+	public boolean isExploded(){ return status == MineSweeper.Status.EXPLODED; }
+
+	/**
+	 * The method that reports the number of chunks in memory.
+	 * @return number of chunks loaded
+	 */
+	public int loadedChunks(){ return chunks.size(); }
+
+	/**
+	 * The method that evicts the chunks more than radius chunks away from a cell:
+	 * chunks nothing was opened or flagged in are dropped, as they are rebuilt
+	 * exactly from their hash; the others drop their counts, rebuilt when read.
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @param radius number of chunks kept on each side of the cell's chunk
+	 * @return number of chunks dropped
+	 */
+	public int evict(int row, int col, int radius){
+		int dropped = 0;
+		Iterator<HashMap.Entry<Long, Chunk>> entries = chunks.entrySet().iterator();
+		while (entries.hasNext()){
+			HashMap.Entry<Long, Chunk> entry = entries.next();
+			long chunkKey = entry.getKey();
+			if (Math.abs((int)(chunkKey >> 32) - (row >> 6)) <= radius
+					&& Math.abs((int)chunkKey - (col >> 6)) <= radius){
+				continue;
+			}
+			Chunk chunk = entry.getValue();
+			if (chunk.marked == 0){
+				entries.remove();
+				dropped++;
+			}
+			else {
+				chunk.counts = null;
+			}
+		}
+		lastChunk = null;
+		return dropped;
+	}
+
+	//evict far chunks once too many are loaded; trimAt doubles so scans stay rare
+	private void trim(int row, int col){
+		if (chunks.size() > trimAt){
+			evict(row, col, KEEP_RADIUS);
+			trimAt = Math.max(maxChunks, 2*chunks.size());
+		}
+	}
+
+	//open a hidden cell
+	private void open(Chunk chunk, int row, int col){
+		chunk.visible[row & (CHUNK-1)] |= 1L << col;
+		chunk.marked++;
+		changes.add(key(row, col));
+	}
+
+	//open the hidden, unflagged neighbors of a zero-count cell (none has a mine)
+	private void openNeighbors(int row, int col){
+		for (int i = row - 1; i <= row + 1; i++){
+			for (int j = col - 1; j <= col + 1; j++){
+				Chunk chunk = chunk(i, j);
+				long bit = 1L << j;
+				int r = i & (CHUNK-1);
+				if (((chunk.visible[r] | chunk.flagged[r]) & bit) == 0){
+					open(chunk, i, j);
+				}
+			}
+		}
+	}
+
+	private static long key(int row, int col){ return (long)row << 32 | (col & 0xFFFFFFFFL); }
+
+	//loaded chunk, or null, without building it
+	private Chunk peek(int chunkRow, int chunkCol){
+		long chunkKey = key(chunkRow, chunkCol);
+		if (lastChunk != null && lastKey == chunkKey){
+			return lastChunk;
+		}
+		Chunk chunk = chunks.get(chunkKey);
+		if (chunk != null){
+			lastKey = chunkKey;
+			lastChunk = chunk;
+		}
+		return chunk;
+	}
+
+	//chunk holding a cell, built if needed
+	private Chunk chunk(int row, int col){
+		Chunk chunk = peek(row >> 6, col >> 6);
+		if (chunk == null){
+			chunk = new Chunk(mineRows(row >> 6, col >> 6));
+			chunks.put(key(row >> 6, col >> 6), chunk);
+			lastKey = key(row >> 6, col >> 6);
+			lastChunk = chunk;
+		}
+		return chunk;
+	}
+
+	//mines of a chunk, one long per row, from the hash of (seed, chunk row, chunk column) only
+	private long[] mineRows(int chunkRow, int chunkCol){
+		long[] rows = new long[CHUNK];
+		SplittableRandom random = new SplittableRandom(chunkSeed(chunkRow, chunkCol));
+		//Floyd's sampling: minesPerChunk distinct cells out of CHUNK x CHUNK
+		for (int j = CHUNK*CHUNK - minesPerChunk; j < CHUNK*CHUNK; j++){
+			int t = random.nextInt(j + 1);
+			if ((rows[t >> 6] & (1L << t)) != 0){
+				t = j;
+			}
+			rows[t >> 6] |= 1L << t;
+		}
+		//keep (0,0) and its neighbors free, so clicking (0,0) first is safe
+		for (int row = -1; row <= 1; row++){
+			for (int col = -1; col <= 1; col++){
+				if (row >> 6 == chunkRow && col >> 6 == chunkCol){
+					rows[row & (CHUNK-1)] &= ~(1L << col);
+				}
+			}
+		}
+		return rows;
+	}
+
+	//mix seed, chunk row and chunk column (SplitMix64 finalizer), so nearby chunks are unrelated
+	private long chunkSeed(int chunkRow, int chunkCol){
+		long z = ((long)chunkRow << 32 | (chunkCol & 0xFFFFFFFFL)) ^ (seed * 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	//counts of a chunk, computed on first use from its mines and the edge mines of its 8 neighbors
+	private byte[] counts(Chunk chunk, int chunkRow, int chunkCol){
+		if (chunk.counts != null){
+			return chunk.counts;
+		}
+		long[][] around = new long[9][];
+		for (int k = 0; k < 9; k++){
+			Chunk other = k == 4 ? chunk : peek(chunkRow + k/3 - 1, chunkCol + k%3 - 1);
+			around[k] = other != null ? other.mines : mineRows(chunkRow + k/3 - 1, chunkCol + k%3 - 1);
+		}
+		byte[] counts = new byte[CHUNK*CHUNK];
+		for (int row = 0; row < CHUNK; row++){
+			for (int col = 0; col < CHUNK; col++){
+				if ((chunk.mines[row] & (1L << col)) != 0){
+					counts[row*CHUNK + col] = -1;
+				}
+				else {
+					counts[row*CHUNK + col] = (byte)(Long.bitCount(window(around, row - 1, col))
+						+ Long.bitCount(window(around, row, col)) + Long.bitCount(window(around, row + 1, col)));
+				}
+			}
+		}
+		chunk.counts = counts;
+		return counts;
+	}
+
+	//mine bits of columns col-1..col+1 in a row from -1 to CHUNK, reaching into the neighbor chunks
+	private static long window(long[][] around, int row, int col){
+		int band = row < 0 ? 0 : row < CHUNK ? 3 : 6;
+		int r = row & (CHUNK-1);
+		long mid = around[band + 1][r];
+		if (col == 0){
+			return (mid << 1 | around[band][r] >>> (CHUNK-1)) & 7;
+		}
+		if (col == CHUNK-1){
+			return mid >>> (CHUNK-2) | (around[band + 2][r] & 1) << 2;
+		}
+		return mid >>> (col - 1) & 7;
+	}
+
+
+	/**
+	 * One chunk: bitplanes of its cells, one long per row.
+	 */
+	private static final class Chunk{
+		private final long[] mines;
+		private final long[] visible = new long[CHUNK];
+		private final long[] flagged = new long[CHUNK];
+
+		//counts, -1 for a mine; null until one is read, or after eviction
+		private byte[] counts;
+
+		//number of visible and flagged cells; 0 means the chunk is as built from its hash
+		private int marked;
+
+		Chunk(long[] mines){
+			this.mines = mines;
+		}
+	}
+}
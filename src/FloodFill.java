@@ -0,0 +1,55 @@
+public class FloodFill{
+
+	/**
+	 * The method that opens a hidden zero-count cell, all zero-count cells connected to it,
+	 * and every cell orthogonally or diagonally adjacent to those zero-count cells.
+	 * Cells are marked visible when they are queued, so no cell is queued twice.
+	 * It uses the counts already stored in the board.
+	 * @param board the board to open cells on
+	 * @param start flat index of a hidden cell without a mine
+	 * @param opened change set the opened cells are appended to; it is also the work queue
+	 * @return the number of cells opened
+	 */
+	public static int reveal(BitBoard board, int start, ChangeSet opened){
+		int from = opened.size();
+		board.setVisible(start);
+		opened.add(start);
+		return expand(board, opened, from);
+	}
+
+	/**
+	 * The method that keeps opening from cells already queued in a change set.
+	 * The cells from position from onward must already be visible; every zero-count
+	 * cell among them (and among the cells it opens) has its hidden neighbors opened.
+	 * @param board the board to open cells on
+	 * @param opened change set used as the work queue; newly opened cells are appended
+	 * @param from position of the first queued cell to expand
+	 * @return the number of cells in the queue from position from onward
+	 */
+	public static int expand(BitBoard board, ChangeSet opened, int from){
+		int cols = board.cols();
+		int rows = board.rows();
+		for (int head = from; head < opened.size(); head++){
+			int idx = opened.index(head);
+			if (board.getCount(idx) != 0){
+				continue;
+			}
+			int row = idx / cols;
+			int col = idx - row * cols;
+			int rowMin = row > 0 ? row - 1 : row;
+			int rowMax = row < rows - 1 ? row + 1 : row;
+			int colMin = col > 0 ? col - 1 : col;
+			int colMax = col < cols - 1 ? col + 1 : col;
+			for (int i = rowMin; i <= rowMax; i++){
+				for (int j = colMin; j <= colMax; j++){
+					int nbr = i * cols + j;
+					if (!board.isVisible(nbr) && !board.hasMine(nbr)){
+						board.setVisible(nbr);
+						opened.add(nbr);
+					}
+				}
+			}
+		}
+		return opened.size() - from;
+	}
+}
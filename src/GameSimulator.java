@@ -0,0 +1,240 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Plays many seeded games without a display, spread over a fork-join pool.
+ *
+ * Every game is fully determined by its seed: the board comes from the seed, and
+ * the strategy's random numbers are seeded from it too. So the totals are the same
+ * however the seed range is split across threads (only the timings vary).
+ * Each worker thread reuses one MineSweeper and one strategy for all its games.
+ */
+public class GameSimulator{
+
+	/**
+	 * Seed ranges up to this size are played on one thread without splitting further.
+	 */
+	public static final int LEAF_GAMES = 256;
+
+	//game setting: a pre-defined level, or CUSTOM with rows/cols/mines
+	private final MineSweeper.Level level;
+	private final int rows;
+	private final int cols;
+	private final int mines;
+
+	//creates one strategy per worker thread
+	private final Supplier<? extends PlayerStrategy> strategies;
+
+	/**
+	 * Constructor for games at a pre-defined level.
+	 * @param level level of every game (not CUSTOM)
+	 * @param strategies creates the strategy for each worker thread
+	 */
+	public GameSimulator(MineSweeper.Level level, Supplier<? extends PlayerStrategy> strategies){
+		if (level == MineSweeper.Level.CUSTOM)
+			throw new IllegalArgumentException("Customized games need more parameters!");
+		this.level = level;
+		this.rows = 0;
+		this.cols = 0;
+		this.mines = 0;
+		this.strategies = strategies;
+	}
+
+	/**
+	 * Constructor for customized games.
+	 * @param rows number of rows of every game
+	 * @param cols number of columns of every game
+	 * @param mines number of mines of every game
+	 * @param strategies creates the strategy for each worker thread
+	 */
+	public GameSimulator(int rows, int cols, int mines, Supplier<? extends PlayerStrategy> strategies){
+		this.level = MineSweeper.Level.CUSTOM;
+		this.rows = rows;
+		this.cols = cols;
+		this.mines = mines;
+		this.strategies = strategies;
+	}
+
+	/**
+	 * The method that plays one game per seed in [seedFrom, seedTo) on the common fork-join pool.
+	 * @param seedFrom first seed
+	 * @param seedTo one past the last seed
+	 * @return totals over all games
+	 */
+	public Result run(int seedFrom, int seedTo){
+		return run(seedFrom, seedTo, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * The method that plays one game per seed in [seedFrom, seedTo) on a pool of the given size.
+	 * @param seedFrom first seed
+	 * @param seedTo one past the last seed
+	 * @param threads number of worker threads
+	 * @return totals over all games
+	 */
+	public Result run(int seedFrom, int seedTo, int threads){
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return run(seedFrom, seedTo, pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	private Result run(int seedFrom, int seedTo, ForkJoinPool pool){
+		if (seedFrom > seedTo)
+			throw new IllegalArgumentException("Invalid seed range: " + seedFrom + " to " + seedTo + "!");
+		//per-run, so workers of an earlier run with another setting are not reused
+		ThreadLocal<Player> players = ThreadLocal.withInitial(Player::new);
+		long start = System.nanoTime();
+		Result result = pool.invoke(new Batch(players, seedFrom, seedTo));
+		return result.withWallNanos(System.nanoTime() - start);
+	}
+
+
+	/**
+	 * The game, strategy and random numbers owned by one worker thread.
+	 */
+	private class Player{
+		final MineSweeper game = level == MineSweeper.Level.CUSTOM
+			? new MineSweeper(0, level, rows, cols, mines)
+			: new MineSweeper(0, level);
+		final PlayerStrategy strategy = strategies.get();
+		final Random random = new Random();
+	}
+
+	/**
+	 * Plays the seeds [from, to), splitting the range in halves until it is small.
+	 */
+	private class Batch extends RecursiveTask<Result>{
+		private static final long serialVersionUID = 1L;
+
+		private final transient ThreadLocal<Player> players;
+		private final int from;
+		private final int to;
+
+		Batch(ThreadLocal<Player> players, int from, int to){
+			this.players = players;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Result compute(){
+			if (to - from > LEAF_GAMES){
+				int mid = (int)(((long)from + to) >>> 1);
+				Batch left = new Batch(players, from, mid);
+				left.fork();
+				Result right = new Batch(players, mid, to).compute();
+				return left.join().plus(right);
+			}
+			Player player = players.get();
+			MineSweeper game = player.game;
+			long wins = 0, explosions = 0, clicks = 0, nanos = 0;
+			for (int seed = from; seed < to; seed++){
+				long start = System.nanoTime();
+				game.initBoard(seed);
+				player.random.setSeed(seed);
+				player.strategy.play(game, player.random);
+				nanos += System.nanoTime() - start;
+				if (game.isSolved()) wins++;
+				if (game.isExploded()) explosions++;
+				clicks += game.clickCount();
+			}
+			return new Result(to - from, wins, explosions, clicks, nanos, 0);
+		}
+	}
+
+
+	/**
+	 * Totals of a simulation run.
+	 */
+	public static class Result{
+		private final long games;
+		private final long wins;
+		private final long explosions;
+		private final long clicks;
+		private final long gameNanos;
+		private final long wallNanos;
+
+		Result(long games, long wins, long explosions, long clicks, long gameNanos, long wallNanos){
+			this.games = games;
+			this.wins = wins;
+			this.explosions = explosions;
+			this.clicks = clicks;
+			this.gameNanos = gameNanos;
+			this.wallNanos = wallNanos;
+		}
+
+		Result plus(Result other){
+			return new Result(games + other.games, wins + other.wins, explosions + other.explosions,
+				clicks + other.clicks, gameNanos + other.gameNanos, 0);
+		}
+
+		Result withWallNanos(long nanos){
+			return new Result(games, wins, explosions, clicks, gameNanos, nanos);
+		}
+
+		//number of games played
+		public long games(){ return games; }
+
+		//number of games solved
+		public long wins(){ return wins; }
+
+		//number of games that ended on a mine
+		public long explosions(){ return explosions; }
+
+		//number of games the strategy stopped without solving or exploding
+		public long gaveUp(){ return games - wins - explosions; }
+
+		//fraction of games solved
+		public double winRate(){ return games == 0 ? 0 : (double)wins / games; }
+
+		//average number of clicks that opened a cell, per game
+		public double clicksPerGame(){ return games == 0 ? 0 : (double)clicks / games; }
+
+		//average time to generate and play one game, in nanoseconds (per thread)
+		public double nanosPerGame(){ return games == 0 ? 0 : (double)gameNanos / games; }
+
+		//elapsed time of the whole run, in nanoseconds
+		public long wallNanos(){ return wallNanos; }
+
+		@Override
+		public String toString(){
+			return String.format("games: %d, wins: %d (%.2f%%), explosions: %d, gave up: %d, "
+				+ "clicks/game: %.2f, time/game: %.2f us, wall time: %.1f ms",
+				games, wins, 100*winRate(), explosions, gaveUp(),
+				clicksPerGame(), nanosPerGame()/1000, wallNanos/1e6);
+		}
+	}
+
+
+	/**
+	 * Command line: GameSimulator seedFrom seedTo LEVEL [strategy], or
+	 * GameSimulator seedFrom seedTo rows cols mines [strategy],
+	 * where strategy is solver (the default) or random.
+	 * @param args command line args
+	 */
+	public static void main(String[] args){
+		if (args.length < 3 || args.length > 6){
+			System.out.println("Usage: java GameSimulator seedFrom seedTo (TINY|EASY|MEDIUM|HARD | rows cols mines) [solver|random]");
+			return;
+		}
+		int from = Integer.parseInt(args[0]);
+		int to = Integer.parseInt(args[1]);
+		boolean custom = args.length >= 5;
+		String name = args.length == 4 || args.length == 6 ? args[args.length-1] : "solver";
+		Supplier<PlayerStrategy> strategy = name.equals("random") ? RandomStrategy::new : SolverStrategy::new;
+		GameSimulator simulator = custom
+			? new GameSimulator(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+				Integer.parseInt(args[4]), strategy)
+			: new GameSimulator(MineSweeper.Level.valueOf(args[2]), strategy);
+		System.out.println(simulator.run(from, to));
+		if (MineMetrics.ENABLED){
+			System.out.println(MineMetrics.snapshot());
+		}
+	}
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a journal written by MoveJournal.
+ *
+ * The file is memory-mapped and scanned once to count the moves and index the
+ * checkpoints. seek(n) then loads the last checkpoint at or before move n and
+ * replays only the moves after it. A journal cut short (e.g. by a crash) is
+ * read up to its last complete record.
+ */
+public class JournalReplayer{
+
+	/**
+	 * The journal, mapped read-only.
+	 */
+	private final ByteBuffer data;
+
+	/**
+	 * Number of moves before each checkpoint, in file order.
+	 */
+	private final IntDynArr310 checkpointMoves = new IntDynArr310();
+
+	/**
+	 * Offset of each checkpoint's state in the file.
+	 */
+	private final IntDynArr310 checkpointStates = new IntDynArr310();
+
+	/**
+	 * Number of complete move records.
+	 */
+	private int moveCount;
+
+
+	/**
+	 * Constructor. Maps the journal and indexes its checkpoints.
+	 * @param file path of the journal
+	 * @throws IOException if the file cannot be read or is not a journal
+	 */
+	public JournalReplayer(Path file) throws IOException{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		if (data.remaining() < 8 || data.getInt(0) != MoveJournal.MAGIC){
+			throw new IOException("Not a MineSweeper journal!");
+		}
+		if (data.getInt(4) != MoveJournal.VERSION){
+			throw new IOException("Unsupported journal version: " + data.getInt(4) + "!");
+		}
+		scan();
+		if (checkpointMoves.size() == 0){
+			throw new IOException("Journal has no checkpoint!");
+		}
+	}
+
+	//walk the records once, counting moves and noting where checkpoints are;
+	//a record cut short at the end (e.g. by a crash while writing) ends the journal,
+	//and so does an undo or redo without the checkpoint that holds its state
+	private void scan(){
+		ByteBuffer in = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		in.position(8);
+		int pending = 0;
+		try {
+			while (in.hasRemaining()){
+				int code = in.get();
+				if (code == MoveJournal.CHECKPOINT){
+					int moves = MoveJournal.getVarint(in);
+					int size = MoveJournal.getVarint(in);
+					if (size < 0 || in.remaining() < size){
+						return;
+					}
+					checkpointMoves.add(moves);
+					checkpointStates.add(in.position());
+					in.position(in.position() + size);
+					moveCount += pending;
+					pending = 0;
+				}
+				else if (pending > 0){
+					return;
+				}
+				else {
+					MoveJournal.getVarint(in);
+					MoveJournal.getVarint(in);
+					if (code == MoveListener.UNDO || code == MoveListener.REDO){
+						pending = 1;
+					}
+					else {
+						moveCount++;
+					}
+				}
+			}
+		}
+		catch (BufferUnderflowException e){
+			//the last record is incomplete
+		}
+	}
+
+	/**
+	 * The method that reports the number of moves in the journal.
+	 * @return number of moves
+	 */
+	public int moveCount(){ return moveCount; }
+
+	/**
+	 * The method that reports the number of checkpoints in the journal.
+	 * @return number of checkpoints
+	 */
+	public int checkpointCount(){ return checkpointMoves.size(); }
+
+	/**
+	 * The method that rebuilds the game as it was after its first n moves.
+	 * @param n number of moves, 0 to moveCount()
+	 * @return a new game in that state
+	 * @throws IOException if a checkpoint cannot be read
+	 */
+	public MineSweeper seek(int n) throws IOException{
+		if (n < 0 || n > moveCount){
+			throw new IndexOutOfBoundsException("Move: " + n + " out of bounds!");
+		}
+		//last checkpoint at or before move n (checkpoints are in increasing move order)
+		int low = 0;
+		int high = checkpointMoves.size() - 1;
+		while (low < high){
+			int mid = (low + high + 1) >>> 1;
+			if (checkpointMoves.get(mid) <= n){
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		int moves = checkpointMoves.get(low);
+
+		//decode() leaves the position at the record after the checkpoint
+		ByteBuffer in = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		in.position(checkpointStates.get(low));
+		MineSweeper game = BoardIO.decode(in);
+		while (moves < n){
+			int code = in.get();
+			if (code == MoveJournal.CHECKPOINT){
+				MoveJournal.getVarint(in);
+				int size = MoveJournal.getVarint(in);
+				in.position(in.position() + size);
+				continue;
+			}
+			int row = MoveJournal.getVarint(in);
+			int col = MoveJournal.getVarint(in);
+			apply(game, code, row, col);
+			moves++;
+		}
+		return game;
+	}
+
+	/**
+	 * The method that rebuilds the game as it was after every move in the journal.
+	 * @return a new game in the final state
+	 * @throws IOException if a checkpoint cannot be read
+	 */
+	public MineSweeper replayAll() throws IOException{
+		return seek(moveCount);
+	}
+
+	private static void apply(MineSweeper game, int code, int row, int col){
+		switch (code){
+			case MoveListener.CLICK:
+				game.clickAt(row, col);
+				break;
+			case MoveListener.FLAG:
+				game.flagAt(row, col);
+				break;
+			case MoveListener.UNFLAG:
+				game.unFlagAt(row, col);
+				break;
+			case MoveListener.CHORD:
+				game.chordAt(row, col);
+				break;
+			case MoveListener.UNDO:
+			case MoveListener.REDO:
+				//never reached: the checkpoint after an undo or redo is where seek() starts from
+				throw new IllegalStateException("Undo or redo without its checkpoint!");
+			default:
+				throw new IllegalStateException("Unknown journal record: " + code + "!");
+		}
+	}
+}
@@ -0,0 +1,178 @@
+public class LongDynArr310 {
+    private long[] storage;    //underlying array
+    private static final int MINCAP = 2;    //default initial capacity / minimum capacity
+
+    private int size = 0;
+    private int initCap;
+
+    public LongDynArr310(){
+        //constructor
+        //initial capacity of the array is MINCAP
+        this.initCap = MINCAP;
+        storage = new long[MINCAP];
+    }
+
+    public LongDynArr310(int initCap){
+        // Initial capacity of the storage should be initCap.
+        if(initCap < MINCAP) {
+            throw new IllegalArgumentException("Capacity must be at least 2!");
+        }
+        this.initCap = initCap;
+        storage = new long[initCap];
+    }
+
+    public int size() {
+        //reports current number of elements
+        return size;
+    }
+
+    public int capacity() {
+        //reports max number of elements
+        return initCap;
+    }
+
+    public long set(int index, long value) {
+        // Replace's the item at the given index to be the given value.
+        // Return's the old item at that index.
+        // Note: New items cannot be added with this method.
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        long holder = storage[index];
+        storage[index] = value;
+        return holder;
+    }
+
+    public long get(int index){
+        // Return's the item at the given index
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        return storage[index];
+    }
+
+    public void add(long value){
+        // Append's an element to the end of the storage.
+        // Double's the capacity if no space available.
+        if(size == storage.length) {
+            expand();
+        }
+        storage[size] = value;
+        size++;
+    }
+
+    private void expand(){
+        initCap *= 2;
+        long[] newStorage = new long[initCap];
+        System.arraycopy(storage, 0, newStorage, 0, size);
+        storage = newStorage;
+    }
+
+    public void insert(int index, long value){
+        // Insert's the given value at the given index and shift's elements if needed.
+        // If no space available, we grow the storage in the same way as required by add().
+        if(index > size || index < 0){
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        if(size == storage.length){
+            expand();
+        }
+        System.arraycopy(storage, index, storage, index + 1, size - index);
+        storage[index] = value;
+        size++;
+    }
+
+    public long remove(int index){
+        // Remove's and return's the element at the given index. Shift's elements
+
+        // If the number of elements after removal falls below or at 1/3 of the capacity,
+        // We halve capacity (rounding down) of the storage.
+        // However, capacity does not go below MINCAP.
+        if(index >= size || index < 0){
+            throw new IndexOutOfBoundsException("Index: " + index + " out of bounds!");
+        }
+        long holder = storage[index];
+        System.arraycopy(storage, index + 1, storage, index, size - index - 1);
+        size--;
+        if(size <= (initCap/3) && (initCap/2) >= MINCAP){
+            halve();
+        }
+        return holder;
+    }
+
+    private void halve(){
+        initCap /= 2;
+        long[] newStorage = new long[initCap];
+        System.arraycopy(storage, 0, newStorage, 0, size);
+        storage = newStorage;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            s.append(storage[i]);
+            if (i<size()-1)
+                s.append(", ");
+        }
+        s.append("]");
+        return s.toString().trim();
+    }
+
+    //Code Testing Below this line
+
+    public String toStringDebug() {
+        //This method is written for debugging purposes
+        //it prints out the LongDynArr310 details for easy viewing
+        StringBuilder s = new StringBuilder("LongDynArr310 with " + size()
+            + " items and a capacity of " + capacity() + ":");
+        for (int i = 0; i < size(); i++) {
+            s.append("\n ["+i+"]: " + storage[i]);
+        }
+        return s.toString().trim();
+    }
+
+    public static void main (String args[]){
+        //Sample tests, same as IntDynArr310 with values that need a long
+        LongDynArr310 lda = new LongDynArr310();
+        if ((lda.size() == 0) && (lda.capacity() == 2)){
+            System.out.println("Yay 1");
+        }
+        //add some numbers at the end
+        for (int i=0; i<3; i++)
+            lda.add(i*5000000000L);
+
+        //checking dynamic array details
+        if (lda.size() == 3 && lda.get(2) == 10000000000L && lda.capacity() == 4){
+            System.out.println("Yay 2");
+        }
+
+        //insert, set, get
+        lda.insert(1,-10);
+        lda.insert(4,Long.MAX_VALUE);
+        if (lda.set(1,-20) == -10 && lda.get(2) == 5000000000L && lda.size() == 5
+            && lda.capacity() == 8 ){
+            System.out.println("Yay 3");
+        }
+
+        //toString
+        if (lda.toString().equals("[0, -20, 5000000000, 10000000000, 9223372036854775807]")){
+            System.out.println("Yay 4");
+        }
+
+        //remove
+        if (lda.remove(0) == 0 && lda.remove(1) == 5000000000L && lda.remove(0) == -20 &&
+            lda.get(0) == 10000000000L && lda.size() == 2 && lda.capacity() == 4){
+            System.out.println("Yay 5");
+        }
+        //exception checking
+        try{
+            lda.set(-1,0);
+        }
+        catch (IndexOutOfBoundsException ex){
+            if (ex.getMessage().equals("Index: -1 out of bounds!")){
+                System.out.println("Yay 6");
+            }
+        }
+    }
+}
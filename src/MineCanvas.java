@@ -0,0 +1,207 @@
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+
+public class MineCanvas extends Pane{
+
+	/**
+	 * Width and height of one cell, in pixels.
+	 */
+	public static final int CELL_SIZE = 30;
+
+	/**
+	 * Minesweeper game to display.
+	 */
+	private final MineSweeper game;
+
+	/**
+	 * Scroll pane this board is shown in; only its viewport is drawn.
+	 */
+	private final ScrollPane scrollPane;
+
+	/**
+	 * Canvas the size of the viewport, moved along as the board scrolls.
+	 */
+	private final Canvas canvas;
+
+	/**
+	 * Action to run after every move, e.g. to update the status labels.
+	 */
+	private final Runnable afterMove;
+
+	/**
+	 * Font for counts and marks.
+	 */
+	private final Font font = Font.font("Verdana", FontWeight.BOLD, 14);
+
+
+	/**
+	 * Constructor. Sizes the pane to the whole board but only creates one
+	 * viewport-sized canvas, and hooks up mouse handling and scrolling.
+	 * @param game game to display
+	 * @param scrollPane scroll pane this board is placed in
+	 * @param afterMove action to run after every click or flag
+	 */
+	public MineCanvas(MineSweeper game, ScrollPane scrollPane, Runnable afterMove){
+		this.game = game;
+		this.scrollPane = scrollPane;
+		this.afterMove = afterMove;
+
+		double width = (double)game.colCount() * CELL_SIZE;
+		double height = (double)game.rowCount() * CELL_SIZE;
+		setMinSize(width, height);
+		setPrefSize(width, height);
+		setMaxSize(width, height);
+
+		canvas = new Canvas();
+		canvas.setMouseTransparent(true);
+		getChildren().add(canvas);
+
+		scrollPane.viewportBoundsProperty().addListener((obs, oldV, newV) -> redraw());
+		scrollPane.hvalueProperty().addListener((obs, oldV, newV) -> redraw());
+		scrollPane.vvalueProperty().addListener((obs, oldV, newV) -> redraw());
+
+		setOnMousePressed(mouseEvent -> {
+			int row = (int)(mouseEvent.getY() / CELL_SIZE);
+			int col = (int)(mouseEvent.getX() / CELL_SIZE);
+			if (row < 0 || col < 0 || row >= game.rowCount() || col >= game.colCount())
+				return;
+			if (game.isSolved() || game.isExploded())
+				return;
+
+			if (mouseEvent.getButton() == MouseButton.MIDDLE
+					|| (mouseEvent.isPrimaryButtonDown() && mouseEvent.isSecondaryButtonDown())){
+				//middle click, or both buttons: chord on a revealed count
+				if (!game.isVisible(row, col))
+					return;
+				game.chordAt(row, col);
+			}
+			else if (mouseEvent.getButton() == MouseButton.PRIMARY){
+				//left click: click/open
+				if (game.isFlagged(row, col) || game.isVisible(row, col))
+					return;
+				game.clickAt(row, col);
+			}
+			else if (mouseEvent.getButton() == MouseButton.SECONDARY){
+				//right click: flag or unflag
+				if (game.isVisible(row, col))
+					return;
+				if (game.isFlagged(row, col))
+					game.unFlagAt(row, col);
+				else
+					game.flagAt(row, col);
+			}
+			else {
+				return;
+			}
+			redrawChanges();
+			afterMove.run();
+		});
+	}
+
+	/**
+	 * The method to redraw every cell inside the viewport of the scroll pane.
+	 */
+	public void redraw(){
+		Bounds viewport = scrollPane.getViewportBounds();
+		//viewport min x/y is the negated scroll offset into this pane
+		double x = Math.max(0, -viewport.getMinX());
+		double y = Math.max(0, -viewport.getMinY());
+		double width = Math.min(viewport.getWidth(), getPrefWidth() - x);
+		double height = Math.min(viewport.getHeight(), getPrefHeight() - y);
+		if (width <= 0 || height <= 0)
+			return;
+
+		canvas.relocate(x, y);
+		canvas.setWidth(width);
+		canvas.setHeight(height);
+
+		int rowFrom = (int)(y / CELL_SIZE);
+		int rowTo = Math.min(game.rowCount() - 1, (int)((y + height) / CELL_SIZE));
+		int colFrom = (int)(x / CELL_SIZE);
+		int colTo = Math.min(game.colCount() - 1, (int)((x + width) / CELL_SIZE));
+
+		long start = MineMetrics.ENABLED ? System.nanoTime() : 0;
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, width, height);
+		for (int row = rowFrom; row <= rowTo; row++){
+			for (int col = colFrom; col <= colTo; col++){
+				drawCell(gc, row, col);
+			}
+		}
+		if (MineMetrics.ENABLED){
+			MineMetrics.repainted("redraw", (rowTo - rowFrom + 1) * (colTo - colFrom + 1), System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * The method to redraw only the cells changed by the last move.
+	 * When the game is over every mine is marked, so the whole viewport is redrawn.
+	 */
+	private void redrawChanges(){
+		if (game.isSolved() || game.isExploded()){
+			redraw();
+			return;
+		}
+		long start = MineMetrics.ENABLED ? System.nanoTime() : 0;
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		ChangeSet changes = game.getLastChanges();
+		for (int k = 0; k < changes.size(); k++){
+			drawCell(gc, changes.row(k), changes.col(k));
+		}
+		if (MineMetrics.ENABLED){
+			MineMetrics.repainted("redrawChanges", changes.size(), System.nanoTime() - start);
+		}
+	}
+
+	//draw one cell, in canvas coordinates; cells outside the canvas are clipped away
+	private void drawCell(GraphicsContext gc, int row, int col){
+		double x = (double)col * CELL_SIZE - canvas.getLayoutX();
+		double y = (double)row * CELL_SIZE - canvas.getLayoutY();
+		if (x + CELL_SIZE < 0 || y + CELL_SIZE < 0 || x > canvas.getWidth() || y > canvas.getHeight())
+			return;
+
+		boolean over = game.isSolved() || game.isExploded();
+		boolean visible = game.isVisible(row, col);
+		boolean mine = game.hasMine(row, col);
+
+		if (visible && mine)
+			gc.setFill(Color.CORAL); //exploded
+		else if (visible)
+			gc.setFill(Color.WHITESMOKE);
+		else
+			gc.setFill(Color.LIGHTGRAY);
+		gc.fillRect(x, y, CELL_SIZE, CELL_SIZE);
+		gc.setStroke(Color.GRAY);
+		gc.strokeRect(x + 0.5, y + 0.5, CELL_SIZE - 1, CELL_SIZE - 1);
+
+		String text = null;
+		Color color = Color.BLACK;
+		if ((visible || over) && mine){
+			text = "X";
+			color = Color.RED;
+		}
+		else if (game.isFlagged(row, col)){
+			text = "F";
+		}
+		else if (visible && game.getCount(row, col) > 0){
+			text = game.getCount(row, col) + "";
+		}
+		if (text != null){
+			gc.setFont(font);
+			gc.setFill(color);
+			gc.setTextAlign(TextAlignment.CENTER);
+			gc.setTextBaseline(VPos.CENTER);
+			gc.fillText(text, x + CELL_SIZE / 2.0, y + CELL_SIZE / 2.0);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 import javafx.application.Application;
 import javafx.stage.Stage;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -14,6 +15,32 @@ import java.util.Random;
 
 public class MineGUI extends Application{
 	
+	/**
+	 * Boards with more cells than this are drawn on a single canvas instead of
+	 * one button per cell. Set with -Dminegui.canvasThreshold=N.
+	 */
+	private static final int CANVAS_THRESHOLD = Integer.getInteger("minegui.canvasThreshold", 5000);
+	
+	/**
+	 * Largest number of rows for a customized game.
+	 */
+	private static final int MAX_CUSTOM_ROW = 1000;
+	
+	/**
+	 * Largest number of columns for a customized game.
+	 */
+	private static final int MAX_CUSTOM_COL = 1000;
+	
+	/**
+	 * Largest width of the board viewport in canvas mode, in pixels.
+	 */
+	private static final double MAX_VIEWPORT_WIDTH = 1200;
+	
+	/**
+	 * Largest height of the board viewport in canvas mode, in pixels.
+	 */
+	private static final double MAX_VIEWPORT_HEIGHT = 800;
+	
 	/**
 	 * Stage for display.
 	 */  
@@ -24,6 +51,11 @@ public class MineGUI extends Application{
 	 */  
 	private GridPane mineGrid;
 	
+	/**
+	 * Canvas for board display of large games (null when the grid pane is used).
+	 */  
+	private MineCanvas mineCanvas;
+	
 	/**
 	 * Label to show game status.
 	 */  
@@ -54,6 +86,16 @@ public class MineGUI extends Application{
 	 * Random number generator used to create minesweeper games.
 	 */  
 	private Random random;
+	
+	/**
+	 * Seed of the current game, so the same board can be played again.
+	 */  
+	private int seed;
+	
+	/**
+	 * Cache of generated boards, so repeated boards are not generated again.
+	 */  
+	private final BoardCache boardCache = new BoardCache(32, 64L << 20);
 
 	/**
 	 * Number of rows for a customized game.
@@ -90,7 +132,7 @@ public class MineGUI extends Application{
 	public void init(){
 		random = new Random(10);
 		level = MineSweeper.Level.TINY;
-		game = new MineSweeper(random.nextInt(),level);
+		newGame(random.nextInt());
 	}
 
 	
@@ -110,7 +152,41 @@ public class MineGUI extends Application{
 		//menu
 		setUpMenu();
 		
-		//grid for the board
+		//grid for the board, or a single canvas for large boards
+		if ((long)game.rowCount() * game.colCount() > CANVAS_THRESHOLD){
+			mineGrid = null;
+			mineCanvas = new MineCanvas(game, wrapperPane, this::updateStatus);
+			wrapperPane.setPrefViewportWidth(Math.min(MAX_VIEWPORT_WIDTH, mineCanvas.getPrefWidth()));
+			wrapperPane.setPrefViewportHeight(Math.min(MAX_VIEWPORT_HEIGHT, mineCanvas.getPrefHeight()));
+			wrapperPane.setContent(mineCanvas);
+		}
+		else{
+			mineCanvas = null;
+			setUpGrid();
+			wrapperPane.setContent(mineGrid);
+		}
+		
+		//add's Status 
+		statusLabel = new Label("INIT");	   
+		Font font = Font.font("Verdana", FontWeight.BOLD,16);
+		statusLabel.setFont(font);
+		
+		//add's mine count
+		mineCountLabel = new Label("MINES: "+game.mineLeft());
+		mineCountLabel.setFont(font);
+			 
+		mainPane.getChildren().addAll(menuBar, wrapperPane,statusLabel, mineCountLabel);
+		
+		Scene scene = new Scene(mainPane);
+		mineStage.setTitle("MineSweeper");
+		mineStage.setScene(scene); 
+		mineStage.show();
+	}
+	
+	/**
+	 *  The method to set up one toggle button per cell and their mouse actions.
+	 */	
+	private void setUpGrid(){
 		mineGrid = new GridPane();
 		for(int row = 0; row < game.rowCount(); row++){
 			for (int col = 0; col < game.colCount(); col++){
@@ -121,8 +197,18 @@ public class MineGUI extends Application{
 				final int colV = col;
 				button.setOnMousePressed(
 					mouseEvent -> {
-						//left click: click/open
-						if (mouseEvent.isPrimaryButtonDown()){
+						//middle click, or both buttons: chord on a revealed count
+						if (mouseEvent.isMiddleButtonDown()
+								|| (mouseEvent.isPrimaryButtonDown() && mouseEvent.isSecondaryButtonDown())){
+							if (game.isVisible(rowV, colV)){
+								button.setSelected(true);
+								game.chordAt(rowV, colV);
+								updateButtons(-1, -1);
+								updateStatus();
+							}
+							
+						}else if (mouseEvent.isPrimaryButtonDown()){
+							//left click: click/open
 							if (game.isFlagged(rowV, colV)){
 								button.setSelected(true);
 								return;
@@ -188,24 +274,6 @@ public class MineGUI extends Application{
 				mineGrid.add(button, col, row);
 			}
 		}
-		
-		wrapperPane.setContent(mineGrid);
-		
-		//add's Status 
-		statusLabel = new Label("INIT");	   
-		Font font = Font.font("Verdana", FontWeight.BOLD,16);
-		statusLabel.setFont(font);
-		
-		//add's mine count
-		mineCountLabel = new Label("MINES: "+game.mineLeft());
-		mineCountLabel.setFont(font);
-			 
-		mainPane.getChildren().addAll(menuBar, wrapperPane,statusLabel, mineCountLabel);
-		
-		Scene scene = new Scene(mainPane);
-		mineStage.setTitle("MineSweeper");
-		mineStage.setScene(scene); 
-		mineStage.show();
 	}
 	
 	/**
@@ -216,10 +284,12 @@ public class MineGUI extends Application{
 		Menu newGame = new Menu("New Game");
 		MenuItem repeat = new MenuItem("New Game (Current Setting)");
 		repeat.setOnAction(e ->{
-			if (level!= MineSweeper.Level.CUSTOM)
-				game = new MineSweeper(random.nextInt(),level);
-			else
-				game = new MineSweeper(random.nextInt(),level,customRow, customCol, customMine);
+			newGame(random.nextInt());
+			start(mineStage);
+		});
+		MenuItem restart = new MenuItem("Restart (Same Board)");
+		restart.setOnAction(e ->{
+			newGame(seed);
 			start(mineStage);
 		});
 		
@@ -228,28 +298,28 @@ public class MineGUI extends Application{
 		RadioMenuItem tiny = new RadioMenuItem("Tiny (5x5, 3)");
 		tiny.setOnAction(e ->{
 			level = MineSweeper.Level.TINY;
-			game = new MineSweeper(random.nextInt(),level);
+			newGame(random.nextInt());
 			start(mineStage);
 		});
 		
 		RadioMenuItem easy = new RadioMenuItem("Easy (9x9, 10)");
 		easy.setOnAction(e ->{
 			level = MineSweeper.Level.EASY;
-			game = new MineSweeper(random.nextInt(),level);
+			newGame(random.nextInt());
 			start(mineStage);
 		});
 		
 		RadioMenuItem middle = new RadioMenuItem("Medium (16x16, 40)");
 		middle.setOnAction(e ->{
 			level = MineSweeper.Level.MEDIUM;
-			game = new MineSweeper(random.nextInt(),level);
+			newGame(random.nextInt());
 			start(mineStage);
 		});
 		
 		RadioMenuItem hard = new RadioMenuItem("Hard (16x30, 99)");
 		hard.setOnAction(e ->{
 			level = MineSweeper.Level.HARD;
-			game = new MineSweeper(random.nextInt(),level);
+			newGame(random.nextInt());
 			start(mineStage);
 		});
 		
@@ -283,12 +353,24 @@ public class MineGUI extends Application{
 				;
 		}
 		
-		newGame.getItems().addAll(repeat, separator, tiny, easy, middle, hard, custom); 
+		newGame.getItems().addAll(repeat, restart, separator, tiny, easy, middle, hard, custom); 
 		
 		menuBar.getMenus().addAll(newGame);
 			
 	}
 	
+	/**
+	 * The method to create a game of the current level from a seed, reusing cached boards.
+	 * @param newSeed seed of the game
+	 */
+	private void newGame(int newSeed){
+		seed = newSeed;
+		if (level != MineSweeper.Level.CUSTOM)
+			game = MineSweeper.newCachedGame(boardCache, seed, level);
+		else
+			game = MineSweeper.newCachedGame(boardCache, seed, customRow, customCol, customMine);
+	}
+	
 	/**
 	 *  The method to pop up a new window for customized level setting.
 	 */
@@ -300,10 +382,10 @@ public class MineGUI extends Application{
 
 		Label message = new Label("Customize");
 
-		Label row = new Label("Number of rows (1-30): ");
+		Label row = new Label("Number of rows (1-" + MAX_CUSTOM_ROW + "): ");
 		TextField rowInput = new TextField();
 		rowInput.setMaxWidth(50);
-		Label col = new Label("Number of columns (1-60): ");
+		Label col = new Label("Number of columns (1-" + MAX_CUSTOM_COL + "): ");
 		TextField colInput = new TextField();
 		colInput.setMaxWidth(50);
 		Label mine = new Label("Number of mines: ");
@@ -318,7 +400,7 @@ public class MineGUI extends Application{
 				customCol = Integer.parseInt(colInput.getCharacters().toString());
 				customMine = Integer.parseInt(mineInput.getCharacters().toString());
 				if (customRow<=0 || customCol<=0 || customMine <=0 ||
-						customRow>30 || customCol>60 ||
+						customRow>MAX_CUSTOM_ROW || customCol>MAX_CUSTOM_COL ||
 						customMine>customRow*customCol){
 					//check mine num <= col*row
 					message.setTextFill(Color.RED);
@@ -334,7 +416,7 @@ public class MineGUI extends Application{
 						}
 					}
 					customText = String.format("(%dx%d, %d)", customRow, customCol, customMine);
-					game = new MineSweeper(random.nextInt(),level,customRow, customCol, customMine);
+					newGame(random.nextInt());
 					start(mineStage);
 					dimensionSettings.close();
 				}
@@ -353,27 +435,37 @@ public class MineGUI extends Application{
 	}
 
 	/**
-	 * The method to update buttons (cells) that are visible after one left-click.
-	 * @param row row index of cell clicked
+	 * The method to update buttons (cells) that are visible after one left-click or chord.
+	 * Only the cells the click opened are repainted.
+	 * @param row row index of cell clicked (-1 to repaint them all)
 	 * @param col col index of cell clicked
 	 */   
 	private void updateButtons(int row, int col){
 		
-		for (int i=0; i<game.rowCount(); i++){
-			for (int j=0; j<game.colCount();j++){
-				if (game.isVisible(i,j) && game.getCount(i,j)>=0){
-					int pos = j + i * game.colCount();
-					ToggleButton button = (ToggleButton) mineGrid.getChildren().get(pos);
-					if (i!=row || j!=col){
-						button.setSelected(true);
-						if (game.getCount(i,j)>0)
-							button.setText(game.getCount(i,j)+"");
-					}
-					
-				}
-					
+		long start = MineMetrics.ENABLED ? System.nanoTime() : 0;
+		ChangeSet opened = game.getLastChanges();
+		for (int k=0; k<opened.size(); k++){
+			int i = opened.row(k);
+			int j = opened.col(k);
+			if (game.getCount(i,j)>=0 && (i!=row || j!=col)){
+				int pos = j + i * game.colCount();
+				ToggleButton button = (ToggleButton) mineGrid.getChildren().get(pos);
+				button.setSelected(true);
+				if (game.getCount(i,j)>0)
+					button.setText(game.getCount(i,j)+"");
+			}
+			else if (game.getCount(i,j)<0){
+				//a mine opened by a chord next to a wrong flag
+				int pos = j + i * game.colCount();
+				ToggleButton button = (ToggleButton) mineGrid.getChildren().get(pos);
+				button.setText("X"); //exploded
+				button.setTextFill(Color.RED);
+				button.setStyle("-fx-background-color: coral");
 			}
 		}
+		if (MineMetrics.ENABLED){
+			MineMetrics.repainted("updateButtons", opened.size(), System.nanoTime() - start);
+		}
 		
 	}
 	
@@ -382,6 +474,7 @@ public class MineGUI extends Application{
 	 *  The method to update game status and mine count.
 	 */   
 	private void updateStatus(){
+		long start = MineMetrics.ENABLED ? System.nanoTime() : 0;
 		statusLabel.setText(game.getStatus());
 		if (game.isSolved())
 			statusLabel.setTextFill(Color.FORESTGREEN);
@@ -389,23 +482,25 @@ public class MineGUI extends Application{
 			statusLabel.setTextFill(Color.RED);
 		
 		//disable all buttons if solved or exploded
-		if (game.isSolved() || game.isExploded()){
-			for (int i=0; i<game.rowCount(); i++){
-				for (int j=0; j<game.colCount();j++){
-					int pos = j + i * game.colCount();
-					ToggleButton button = (ToggleButton) mineGrid.getChildren().get(pos);
-					button.setDisable(true);
-					if (game.hasMine(i,j)){
-						//mark mines
-						button.setText("X"); //exploded
-						button.setTextFill(Color.RED);
-					}
-				}
+		//(the canvas marks mines itself when it redraws)
+		if (mineCanvas == null && (game.isSolved() || game.isExploded())){
+			for (Node button : mineGrid.getChildren()){
+				button.setDisable(true);
+			}
+			//mark mines; buttons are in the order of the cells, so a mine's index is its button's
+			BoardSnapshot snapshot = game.snapshot();
+			for (int idx = snapshot.nextMine(0); idx >= 0; idx = snapshot.nextMine(idx + 1)){
+				ToggleButton button = (ToggleButton) mineGrid.getChildren().get(idx);
+				button.setText("X"); //exploded
+				button.setTextFill(Color.RED);
 			}
 		}
 		if (!game.isSolved())
 			mineCountLabel.setText("MINES: " + game.mineLeft());
 		else
 			mineCountLabel.setText("MINES: 0");
+		if (MineMetrics.ENABLED){
+			MineMetrics.repainted("updateStatus", -1, System.nanoTime() - start);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Counters, histograms and JFR events for the hot paths of the game.
+ *
+ * Instrumented code guards every measurement with the ENABLED constant, which is
+ * read once from the system property minesweeper.metrics. Left off (the default),
+ * the JIT folds the guards away, so the instrumentation costs nothing. Turned on
+ * (-Dminesweeper.metrics=true), each measurement goes to a lock-free histogram,
+ * and to a JFR event when a recording asks for it, e.g.
+ * java -Dminesweeper.metrics=true -XX:StartFlightRecording=filename=game.jfr ...
+ *
+ * Measured: board generation in initBoard(), split into mine placement and counts;
+ * clickAt() latency; cascade size of exposeZeroCountCells(); countNbrMines() calls;
+ * and GUI repaint time (MineGUI.updateButtons/updateStatus, MineCanvas redraws).
+ * snapshot() reads them all at once.
+ */
+public final class MineMetrics{
+
+	/**
+	 * Whether the instrumented code records anything.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+	private static final Histogram PLACE_NANOS = new Histogram();
+	private static final Histogram COUNT_NANOS = new Histogram();
+	private static final Histogram CLICK_NANOS = new Histogram();
+	private static final Histogram CASCADE_CELLS = new Histogram();
+	private static final Histogram REPAINT_NANOS = new Histogram();
+	private static final LongAdder COUNT_NBR_MINES_CALLS = new LongAdder();
+
+	private MineMetrics(){
+	}
+
+	/**
+	 * The method that records the generation of a board.
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @param mines number of mines
+	 * @param placeNanos time spent placing the mines
+	 * @param countNanos time spent computing the counts
+	 */
+	public static void boardGenerated(int rows, int cols, int mines, long placeNanos, long countNanos){
+		PLACE_NANOS.record(placeNanos);
+		COUNT_NANOS.record(countNanos);
+		BoardEvent event = new BoardEvent();
+		if (event.isEnabled()){
+			event.rows = rows;
+			event.cols = cols;
+			event.mines = mines;
+			event.placeTime = placeNanos;
+			event.countTime = countNanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * The method that records a click.
+	 * @param row row clicked
+	 * @param col column clicked
+	 * @param opened number of cells it opened
+	 * @param nanos time the click took
+	 */
+	public static void clicked(int row, int col, int opened, long nanos){
+		CLICK_NANOS.record(nanos);
+		ClickEvent event = new ClickEvent();
+		if (event.isEnabled()){
+			event.row = row;
+			event.col = col;
+			event.opened = opened;
+			event.latency = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * The method that records the size of a cascade.
+	 * @param cells number of cells the cascade opened
+	 */
+	public static void cascade(int cells){
+		CASCADE_CELLS.record(cells);
+	}
+
+	/**
+	 * The method that counts a countNbrMines() call.
+	 */
+	public static void countNbrMinesCalled(){
+		COUNT_NBR_MINES_CALLS.increment();
+	}
+
+	/**
+	 * The method that records a GUI repaint.
+	 * @param what name of the repaint, e.g. "updateButtons"
+	 * @param cells number of cells repainted, or -1 if not known
+	 * @param nanos time the repaint took
+	 */
+	public static void repainted(String what, int cells, long nanos){
+		REPAINT_NANOS.record(nanos);
+		RepaintEvent event = new RepaintEvent();
+		if (event.isEnabled()){
+			event.what = what;
+			event.cells = cells;
+			event.duration = nanos;
+			event.commit();
+		}
+	}
+
+	/**
+	 * The method that returns the current values of every metric.
+	 * @return a snapshot
+	 */
+	public static Snapshot snapshot(){
+		return new Snapshot();
+	}
+
+	/**
+	 * The method that sets every metric back to zero.
+	 */
+	public static void reset(){
+		PLACE_NANOS.reset();
+		COUNT_NANOS.reset();
+		CLICK_NANOS.reset();
+		CASCADE_CELLS.reset();
+		REPAINT_NANOS.reset();
+		COUNT_NBR_MINES_CALLS.reset();
+	}
+
+
+	/**
+	 * The values of every metric at one time.
+	 */
+	public static final class Snapshot{
+		public final Stats placeNanos = PLACE_NANOS.stats();
+		public final Stats countNanos = COUNT_NANOS.stats();
+		public final Stats clickNanos = CLICK_NANOS.stats();
+		public final Stats cascadeCells = CASCADE_CELLS.stats();
+		public final Stats repaintNanos = REPAINT_NANOS.stats();
+		public final long countNbrMinesCalls = COUNT_NBR_MINES_CALLS.sum();
+
+		private Snapshot(){
+		}
+
+		@Override
+		public String toString(){
+			return "initBoard place ns: " + placeNanos + "\n"
+				+ "initBoard count ns: " + countNanos + "\n"
+				+ "clickAt ns: " + clickNanos + "\n"
+				+ "cascade cells: " + cascadeCells + "\n"
+				+ "repaint ns: " + repaintNanos + "\n"
+				+ "countNbrMines calls: " + countNbrMinesCalls;
+		}
+	}
+
+	/**
+	 * Summary of a histogram. Percentiles are the upper bound of their power-of-two bucket.
+	 */
+	public static final class Stats{
+		public final long count, sum, max, p50, p99;
+
+		private Stats(long count, long sum, long max, long p50, long p99){
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+			this.p50 = p50;
+			this.p99 = p99;
+		}
+
+		public double mean(){ return count == 0 ? 0 : (double)sum / count; }
+
+		@Override
+		public String toString(){
+			return "count " + count + ", mean " + Math.round(mean()) + ", p50 " + p50 + ", p99 " + p99 + ", max " + max;
+		}
+	}
+
+	/**
+	 * A histogram of non-negative values in power-of-two buckets: bucket b holds
+	 * values below 2^b (and at least 2^(b-1)). Recording is a few atomic adds.
+	 */
+	private static final class Histogram{
+		private final AtomicLongArray buckets = new AtomicLongArray(65);
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		void record(long value){
+			value = Math.max(0, value);
+			buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		void reset(){
+			for (int b = 0; b < buckets.length(); b++){
+				buckets.set(b, 0);
+			}
+			sum.reset();
+			max.reset();
+		}
+
+		Stats stats(){
+			long[] counts = new long[buckets.length()];
+			long count = 0;
+			for (int b = 0; b < counts.length; b++){
+				counts[b] = buckets.get(b);
+				count += counts[b];
+			}
+			long maxValue = max.get();
+			return new Stats(count, sum.sum(), maxValue,
+				percentile(counts, count, 0.50, maxValue), percentile(counts, count, 0.99, maxValue));
+		}
+
+		private static long percentile(long[] counts, long count, double p, long maxValue){
+			long rank = (long)Math.ceil(p * count);
+			long seen = 0;
+			for (int b = 0; b < counts.length; b++){
+				seen += counts[b];
+				if (seen >= rank && seen > 0){
+					return b == 0 ? 0 : Math.min(maxValue, b >= 63 ? Long.MAX_VALUE : (1L << b) - 1);
+				}
+			}
+			return 0;
+		}
+	}
+
+
+	@Name("minesweeper.BoardGenerated")
+	@Label("Board Generated")
+	@Category("MineSweeper")
+	static final class BoardEvent extends Event{
+		@Label("Rows") int rows;
+		@Label("Columns") int cols;
+		@Label("Mines") int mines;
+		@Label("Placement Time") @Timespan(Timespan.NANOSECONDS) long placeTime;
+		@Label("Count Time") @Timespan(Timespan.NANOSECONDS) long countTime;
+	}
+
+	@Name("minesweeper.Click")
+	@Label("Click")
+	@Category("MineSweeper")
+	static final class ClickEvent extends Event{
+		@Label("Row") int row;
+		@Label("Column") int col;
+		@Label("Cells Opened") int opened;
+		@Label("Latency") @Timespan(Timespan.NANOSECONDS) long latency;
+	}
+
+	@Name("minesweeper.Repaint")
+	@Label("Repaint")
+	@Category({"MineSweeper", "GUI"})
+	static final class RepaintEvent extends Event{
+		@Label("What") String what;
+		@Label("Cells") int cells;
+		@Label("Duration") @Timespan(Timespan.NANOSECONDS) long duration;
+	}
+}
@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.Random;
+
+public class MinePlacer{
+
+	/**
+	 * The method that places mineCount mines on an empty board, using random numbers from seed.
+	 * The same seed and board size always give the same mines.
+	 *
+	 * Up to half density it draws random (row,col) pairs and retries on a cell that
+	 * already has a mine; at that density this needs fewer than 1.4 draws per mine,
+	 * and it keeps the boards of the pre-defined levels unchanged.
+	 * Above half density it uses Floyd's sampling over the flat cell indexes,
+	 * which needs exactly one draw per mine at any density.
+	 * @param board an empty board
+	 * @param seed seed for the random number sequence
+	 * @param mineCount number of mines to place, 0 to rows x cols
+	 */
+	public static void place(BitBoard board, int seed, int mineCount){
+		int size = board.size();
+		if (mineCount < 0 || mineCount > size){
+			throw new IllegalArgumentException("Invalid mine count: " + mineCount
+				+ " for a " + board.rows() + " x " + board.cols() + " board!");
+		}
+
+		Random random = new Random(seed);
+		if (mineCount <= size/2){
+			placeByRetry(board, random, mineCount);
+		}
+		else {
+			placeByFloyd(board, random, mineCount);
+		}
+	}
+
+	/**
+	 * The method that places mineCount mines on an empty board, keeping the 3x3 block
+	 * around (safeRow, safeCol) free, so a first click there opens an area.
+	 * The same seed, board size and safe cell always give the same mines.
+	 * @param board an empty board
+	 * @param seed seed for the random number sequence
+	 * @param mineCount number of mines to place, 0 to the number of cells outside the block
+	 * @param safeRow row of the safe cell
+	 * @param safeCol column of the safe cell
+	 */
+	public static void place(BitBoard board, int seed, int mineCount, int safeRow, int safeCol){
+		if (!board.isValidCell(safeRow, safeCol)){
+			throw new IndexOutOfBoundsException("Index(" + safeRow + "," + safeCol + ") out of bounds!");
+		}
+		//flat indexes of the block, in increasing order
+		int[] excluded = new int[9];
+		int n = 0;
+		for (int row = safeRow-1; row <= safeRow+1; row++){
+			for (int col = safeCol-1; col <= safeCol+1; col++){
+				if (board.isValidCell(row, col)){
+					excluded[n++] = board.index(row, col);
+				}
+			}
+		}
+		excluded = Arrays.copyOf(excluded, n);
+
+		int free = board.size() - n;
+		if (mineCount < 0 || mineCount > free){
+			throw new IllegalArgumentException("Invalid mine count: " + mineCount
+				+ " for a " + board.rows() + " x " + board.cols() + " board with a safe cell!");
+		}
+
+		Random random = new Random(seed);
+		if (mineCount <= free/2){
+			for (int idx : excluded){
+				board.setMine(idx); //taken out again below, so the retry skips the block
+			}
+			placeByRetry(board, random, mineCount);
+			for (int idx : excluded){
+				board.removeMine(idx);
+			}
+		}
+		else {
+			//Floyd over the free cells; sample t is the t-th cell outside the block
+			for (int j = free - mineCount; j < free; j++){
+				int t = random.nextInt(j + 1);
+				int idx = freeCell(board.hasMine(freeCell(t, excluded)) ? j : t, excluded);
+				board.setMine(idx);
+			}
+		}
+	}
+
+	//flat index of the t-th cell that is not in excluded (sorted increasingly)
+	private static int freeCell(int t, int[] excluded){
+		int idx = t;
+		for (int e : excluded){
+			if (idx >= e){
+				idx++;
+			}
+		}
+		return idx;
+	}
+
+	private static void placeByRetry(BitBoard board, Random random, int mineCount){
+		int mineNum = 0;
+		while (mineNum < mineCount){
+			//generate next (row, col)
+			int row = random.nextInt(board.rows());
+			int col = random.nextInt(board.cols());
+			int idx = board.index(row, col);
+
+			//cell already has a mine: try again
+			if (board.hasMine(idx)){
+				continue;
+			}
+			board.setMine(idx);
+			mineNum++;
+		}
+	}
+
+	//Floyd: for each j in [size-mineCount, size), pick t in [0, j]; take t if free, else j
+	//(j itself is always free at that point). The board's mine bitplane is the sample set.
+	private static void placeByFloyd(BitBoard board, Random random, int mineCount){
+		int size = board.size();
+		for (int j = size - mineCount; j < size; j++){
+			int t = random.nextInt(j + 1);
+			board.setMine(board.hasMine(t) ? j : t);
+		}
+	}
+}
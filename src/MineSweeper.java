@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.Random;
 
 public class MineSweeper{
@@ -25,8 +26,11 @@ public class MineSweeper{
     private static int COLS_HARD = 30;
     private static int MINES_HARD = 99;
 
-	//the 2d board of cells
-    private DynGrid310<Cell> board;
+	//the 2d board of cells, packed into bitplanes
+    private BitBoard board;
+
+	//cells changed by the last move; also the work queue for opening zero-count areas
+    private final ChangeSet changes = new ChangeSet();
 
 	//number of rows of the board
     private int rowCount;
@@ -43,6 +47,18 @@ public class MineSweeper{
 	//number of cells flagged as a mine
 	private int flaggedCount; 
 
+	//number of clickAt calls that opened a cell
+	private int clickCount; 
+
+	//whether initBoard() leaves the counts to be computed when cells are read
+	private boolean lazyCounts;
+
+	//bumped by every change to the cells, so a BoardSnapshot can tell it is stale
+	private long version;
+
+	//listeners told about every move; empty in most games, so a move only pays for an empty loop
+	private MoveListener[] listeners = new MoveListener[0];
+
 
     //game possible status
     public enum Status {
@@ -66,36 +82,13 @@ public class MineSweeper{
             throw new IllegalArgumentException("Customized games need more parameters!");
             
         //set number of rows, columns, mines based on the pre-defined levels
-        switch(level){
-            case TINY:
-                rowCount = ROWS_TINY;
-                colCount = COLS_TINY;
-                mineTotalCount = MINES_TINY;
-                break;
-            case EASY:
-                rowCount = ROWS_EASY;
-                colCount = COLS_EASY;
-                mineTotalCount = MINES_EASY;
-                break;
-            case MEDIUM:
-                rowCount = ROWS_MEDIUM;
-                colCount = COLS_MEDIUM;
-                mineTotalCount = MINES_MEDIUM;
-                break;
-            case HARD:
-                rowCount = ROWS_HARD;
-                colCount = COLS_HARD;
-                mineTotalCount = MINES_HARD;
-                break;
-            default:
-            	//should not be able to reach here!
-                rowCount = ROWS_TINY;
-                colCount = COLS_TINY;
-                mineTotalCount = MINES_TINY;
-		}
+        int[] settings = levelSettings(level);
+        rowCount = settings[0];
+        colCount = settings[1];
+        mineTotalCount = settings[2];
         
         //create's an empty board of the needed size
-        board = genEmptyBoard(rowCount, colCount);
+        board = new BitBoard(rowCount, colCount);
         
         //place's mines, and initialize's cells
         initBoard(seed);
@@ -114,49 +107,129 @@ public class MineSweeper{
         
         
         //creating an empty board of the needed size
-        board = genEmptyBoard(rowCount, colCount);
+        board = new BitBoard(rowCount, colCount);
         
         //placing mines, and initializing cells
        	initBoard(seed);
         
     }
     
+    //constructor: a game on a board that already has its mines and counts,
+    //e.g. a candidate board being checked by NoGuessGenerator
+    MineSweeper(BitBoard board, int mineCount){
+        this.board = board;
+        rowCount = board.rows();
+        colCount = board.cols();
+        mineTotalCount = mineCount;
+        status = Status.INIT;
+    }
+    
+    //factory: a game of a pre-defined level that can be solved without guessing.
+    //the center cell is safe and is already opened; see NoGuessGenerator
+    public static MineSweeper newNoGuessGame(int seed, Level level){
+        if (level==Level.CUSTOM)
+            throw new IllegalArgumentException("Customized games need more parameters!");
+        int[] settings = levelSettings(level);
+        return newNoGuessGame(seed, settings[0], settings[1], settings[2]);
+    }
+    
+    //factory: a customized game that can be solved without guessing.
+    //the game is built on the generator's board, so no random board is made first
+    public static MineSweeper newNoGuessGame(int seed, int rowCount, int colCount, int mineCount){
+        NoGuessGenerator generator = new NoGuessGenerator(rowCount, colCount, mineCount);
+        MineSweeper game = new MineSweeper(generator.generate(seed), mineCount);
+        game.clickAt(generator.safeRow(), generator.safeCol());
+        return game;
+    }
+    
+    //number of rows, columns and mines of a pre-defined level
+    static int[] levelSettings(Level level){
+        int rows, cols, mines;
+        switch(level){
+            case TINY:
+                rows = ROWS_TINY;
+                cols = COLS_TINY;
+                mines = MINES_TINY;
+                break;
+            case EASY:
+                rows = ROWS_EASY;
+                cols = COLS_EASY;
+                mines = MINES_EASY;
+                break;
+            case MEDIUM:
+                rows = ROWS_MEDIUM;
+                cols = COLS_MEDIUM;
+                mines = MINES_MEDIUM;
+                break;
+            case HARD:
+                rows = ROWS_HARD;
+                cols = COLS_HARD;
+                mines = MINES_HARD;
+                break;
+            default:
+            	//should not be able to reach here!
+                rows = ROWS_TINY;
+                cols = COLS_TINY;
+                mines = MINES_TINY;
+		}
+        return new int[]{rows, cols, mines};
+    }
+    
+    //factory: a game of a pre-defined level whose board comes from a cache;
+    //it has the same board as new MineSweeper(seed, level)
+    public static MineSweeper newCachedGame(BoardCache cache, int seed, Level level){
+        if (level==Level.CUSTOM)
+            throw new IllegalArgumentException("Customized games need more parameters!");
+        int[] settings = levelSettings(level);
+        BitBoard template = cache.get(seed, level, settings[0], settings[1], settings[2]);
+        return new MineSweeper(template.copyLayout(), settings[2]);
+    }
+    
+    //factory: a customized game whose board comes from a cache
+    public static MineSweeper newCachedGame(BoardCache cache, int seed, int rowCount, int colCount, int mineCount){
+        BitBoard template = cache.get(seed, Level.CUSTOM, rowCount, colCount, mineCount);
+        return new MineSweeper(template.copyLayout(), mineCount);
+    }
+    
+    //factory: a game of a pre-defined level with the board of new MineSweeper(seed, level),
+    //whose counts are computed when a cell is first opened or read, not up front
+    public static MineSweeper newLazyGame(int seed, Level level){
+        if (level==Level.CUSTOM)
+            throw new IllegalArgumentException("Customized games need more parameters!");
+        int[] settings = levelSettings(level);
+        return newLazyGame(seed, settings[0], settings[1], settings[2]);
+    }
+    
+    //factory: a customized game with lazy counts; creating it only places the mines,
+    //which makes the start of a game on a board of millions of cells much faster
+    public static MineSweeper newLazyGame(int seed, int rowCount, int colCount, int mineCount){
+        MineSweeper game = new MineSweeper(new BitBoard(rowCount, colCount), mineCount);
+        game.lazyCounts = true;
+        game.initBoard(seed);
+        return game;
+    }
+    
     //method to initialize the game, including placing mines.
     //it is invoked only after an empty board (rowCount x colCount) 
         
     public void initBoard(int seed){
         
-        //using seed to initialize a random number sequence
-        Random random = new Random(seed);
+        //start from an empty board so a game can be re-initialized in place
+        board.clear();
+        version++;
         
-        //randomly placing mines on board
-        int mineNum = 0;
-        for ( ;mineNum<mineTotalCount;){
+        //placing mines from the seed's random number sequence
+        long start = MineMetrics.ENABLED ? System.nanoTime() : 0;
+        MinePlacer.place(board, seed, mineTotalCount);
+        long placed = MineMetrics.ENABLED ? System.nanoTime() : 0;
         
-        	//generate next (row, col)
-            int row = random.nextInt(rowCount);
-            int col = random.nextInt(colCount);
-            
-             
-            //cell already has a mine: try again
-            if (hasMine(row, col)){
-                continue;
-            }
-            
-            //place mine
-            board.get(row,col).setMine();
-            mineNum++;
+        //calculate nbr counts for each cell in a single pass; a lazy game
+        //leaves them to BitBoard.getCount(), which computes a cell's count when it is read
+        if (!lazyCounts){
+        	CountBuilder.build(board);
         }
-        //System.out.println(board);
-        
-        //calculate nbr counts for each cell
-        for (int row=0; row<rowCount; row++){
-            for (int col=0; col<colCount; col++){
-            
-            	//TODO: you implement countNbrMines()
-                int count = countNbrMines(row, col);
-                board.get(row,col).setCount(count);
-            }
+        if (MineMetrics.ENABLED){
+        	MineMetrics.boardGenerated(rowCount, colCount, mineTotalCount, placed - start, System.nanoTime() - placed);
         }
         
         //initialize other game settings   
@@ -164,6 +237,7 @@ public class MineSweeper{
            
         flaggedCount = 0;
         clickedCount = 0;
+        clickCount = 0;
 
     }
     	
@@ -178,26 +252,35 @@ public class MineSweeper{
     
     //report whether a mine has exploded
     public boolean isExploded(){ return status == Status.EXPLODED; }
+    
+    //report the version of the board; it changes whenever a cell does
+    public long version(){ return version; }
+    
+    //a read-only view of the board for readers that walk many cells; nothing is copied,
+    //so the view sees later moves too, and isStale() tells when there were any
+    public BoardSnapshot snapshot(){ return new BoardSnapshot(this, board, version); }
 
 	//display board
 	//used for debugging
     public String boardToString(){
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(8 + 6*colCount + rowCount*(8 + 2*colCount));
         
         //header of column indexes
         sb.append("- |");
-        for (int j=0; j<board.getNumCol(); j++){
-			sb.append(j +"|");
+        for (int j=0; j<colCount; j++){
+			sb.append(j).append('|');
 		}
-        sb.append("\n");
+        sb.append('\n');
         
-    	for(int i=0; i<board.getNumRow(); i++){
-            sb.append(i+" |");
-    		for (int j=0;j<board.getNumCol(); j++){
-      			sb.append(board.get(i,j).toString());
-      		    sb.append("|");
+        //walk the cells in order through a snapshot, without validating each one
+        BoardSnapshot snapshot = snapshot();
+        int idx = 0;
+    	for(int i=0; i<rowCount; i++){
+            sb.append(i).append(" |");
+    		for (int j=0;j<colCount; j++){
+      			sb.append(snapshot.cellToString(idx++)).append('|');
       		}
-      		sb.append("\n");
+      		sb.append('\n');
     	}
     	return sb.toString().trim();
 
@@ -230,8 +313,7 @@ public class MineSweeper{
             return false;
         }
  
-        Cell cell = board.get(row, col);
-        return (cell.isFlagged());
+        return board.isFlagged(board.index(row, col));
     }
     
     public boolean isVisible(int row, int col){
@@ -242,8 +324,7 @@ public class MineSweeper{
             return false;
         }
  
-        Cell cell = board.get(row, col);
-        return (cell.visible());               
+        return board.isVisible(board.index(row, col));
     }
     
     public boolean hasMine(int row, int col){
@@ -255,8 +336,7 @@ public class MineSweeper{
             return false;
         }
  
-        Cell cell = board.get(row, col);
-        return (cell.hasMine());               
+        return board.hasMine(board.index(row, col));
     }
     
     
@@ -268,8 +348,7 @@ public class MineSweeper{
             return -2;
         }
  
-        Cell cell = board.get(row, col);
-        return (cell.getCount());                    
+        return board.getCount(board.index(row, col));
     }
     
     //******************************************************
@@ -283,28 +362,75 @@ public class MineSweeper{
     	
     }
     
+    public int clickCount() {
+    	// report how many clicks have opened a cell so far
+    	return clickCount;
+    }
+    
     public String getStatus() { 
     	// report current game status
     	return Status_STRINGS[status.ordinal()]; 
     	
     }
+    
+    public ChangeSet getLastChanges() {
+    	// report the cells changed (opened, flagged or unflagged) by the last
+    	// clickAt / flagAt / unFlagAt call, so a display only repaints those;
+    	// the set is reused and only valid until the next move
+    	return changes;
+    }
+
 
+    //******************************************************
+	//*******  Methods to save and restore the state  *******
+	//*******     These are used by BoardIO          *******
+	//******************************************************
+
+    //the bitplanes and counts of the game
+    BitBoard bitBoard() { return board; }
+    
+    //number of mines in the board
+    int mineTotalCount() { return mineTotalCount; }
+    
+    //number of cells exposed
+    int clickedCount() { return clickedCount; }
+    
+    //number of cells flagged
+    int flaggedCount() { return flaggedCount; }
+    
+    //current game status
+    Status status() { return status; }
+    
+    //restore the counters and status of a saved game; the board is installed by the constructor
+    void restoreState(int clickedCount, int flaggedCount, int clickCount, Status status) {
+        this.clickedCount = clickedCount;
+        this.flaggedCount = flaggedCount;
+        this.clickCount = clickCount;
+        this.status = status;
+        version++;
+    }
 
     //******************************************************
 	//*******  Methods reserved for testing/grading  *******
     //******************************************************
 
     //return the game board
-    public DynGrid310<Cell> getBoard(){ return board;}
+    //the grid is built on request; its cells are views that read and write the game's bitplanes
+    public DynGrid310<Cell> getBoard(){ return board.toGrid();}
 
 	//set game board
+	//the cells of newBoard are copied in, and counts are recomputed from their mines
 	public void setBoard(DynGrid310<Cell> newBoard, int mineCount) {
 		//set board
-		this.board = newBoard;
+		this.board = BitBoard.fromGrid(newBoard);
+		version++;
 		
 		//set size
-		rowCount = board.getNumRow();
-		colCount = board.getNumCol();
+		rowCount = board.rows();
+		colCount = board.cols();
+		
+		//set counts
+		CountBuilder.build(board);
 		
 		
 		//set other features
@@ -312,6 +438,25 @@ public class MineSweeper{
            
         flaggedCount = 0;
         clickedCount = 0;
+        clickCount = 0;
+        mineTotalCount = mineCount;
+	}
+
+	//set game board from a template board, e.g. one from a BoardCache
+	//the mines and counts are shared with the template until they change (copy-on-write);
+	//only the visible and flagged cells belong to this game
+	public void setBoard(BitBoard template, int mineCount) {
+		this.board = template.copyLayout();
+		version++;
+		
+		rowCount = board.rows();
+		colCount = board.cols();
+		
+	 	status = Status.INIT;
+           
+        flaggedCount = 0;
+        clickedCount = 0;
+        clickCount = 0;
         mineTotalCount = mineCount;
 	}
 
@@ -359,17 +504,20 @@ public class MineSweeper{
     	// count's the number of mines in the neighbor cells of cell (row, col)
         // return's -2 for invalid row / col indexes
     	// return's -1 if cell at (row, col) has a mine underneath it
+    	if (MineMetrics.ENABLED){
+    		MineMetrics.countNbrMinesCalled();
+    	}
     	int mine_count = 0;
-    	if(row >= board.getNumRow() || row < 0 || col < 0 || col >= board.getNumCol()) {
+    	if(row >= rowCount || row < 0 || col < 0 || col >= colCount) {
     		return -2;
     	}
-    	if(board.get(row, col).hasMine()) {
+    	if(board.hasMine(board.index(row, col))) {
     		return -1;
     	}
         for(int i = -1; i <= 1; i++) {
         	for(int j = -1; j <= 1;j++) {
-        		if(row+i >=0 && col+j >=0 && row+i < board.getNumRow()&& (col+j) < board.getNumCol()) {
-        			if(board.get(row+i, col+j).hasMine()) {
+        		if(row+i >=0 && col+j >=0 && row+i < rowCount && (col+j) < colCount) {
+        			if(board.hasMine(board.index(row+i, col+j))) {
                 		mine_count++;
                 	}
         		}
@@ -394,22 +542,40 @@ public class MineSweeper{
      * @return returns the number of bombs in the surrounding area.
      */
     public int clickAt(int row, int col){
+    	long start = MineMetrics.ENABLED ? System.nanoTime() : 0;
+    	int result = openAt(row, col);
+    	if (MineMetrics.ENABLED){
+    		MineMetrics.clicked(row, col, changes.size(), System.nanoTime() - start);
+    	}
+    	moved(MoveListener.CLICK, row, col);
+    	return result;
+    }
+    
+    private int openAt(int row, int col){
     	// open's cell located at (row,col)
-    	if(row<0 || col <0 || row >= board.getNumRow()|| col>=board.getNumCol()|| board.get(row, col).isFlagged()||board.get(row, col).visible()){
+    	changes.clear(colCount);
+    	if(row<0 || col <0 || row >= rowCount|| col>=colCount){
     		return -2;
     	}
+    	int idx = board.index(row, col);
+    	if(board.isFlagged(idx)||board.isVisible(idx)){
+    		return -2;
+    	}
+    	clickCount++;
     	
-    	if(board.get(row, col).hasMine()) {
+    	if(board.hasMine(idx)) {
     		status = Status.EXPLODED;
-    		board.get(row, col).setVisible();
+    		board.setVisible(idx);
+    		changes.add(idx);
     		clickedCount++;
     		return -1;
     	}
-    	if(countNbrMines(row,col) == 0){
-    		exposeZeroCountCells(row,col);
+    	if(board.getCount(idx) == 0){
+    		clickedCount += exposeZeroCountCells(row,col);
     	}else {
     		clickedCount++;
-    		board.get(row, col).setVisible();
+    		board.setVisible(idx);
+    		changes.add(idx);
     	}
     	if(clickedCount == rowCount * colCount - mineTotalCount) {
 			status = Status.SOLVED;
@@ -426,31 +592,23 @@ public class MineSweeper{
     	//			as well as all cells that are orthogonally or diagonally adjacent 
     	//			to those zero-count cells. 
     	
-    	return countNbrMines(row,col); 
+    	return board.getCount(idx); 
 
    	}
     
-    private void exposeZeroCountCells(int row, int col) {
-    	if (row < 0 || col < 0 || row >= board.getNumRow() || col >= board.getNumCol()) {
-            return;
-        }
-        Cell cell = board.get(row, col);
-        if (cell.visible() || cell.hasMine()) {
-            return;
-        }
-
-        cell.setVisible();
-        clickedCount++;
-
-        if (countNbrMines(row, col) == 0) {
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (i != 0 || j != 0) {
-                        exposeZeroCountCells(row + i, col + j);
-                    }
-                }
-            }
-        }
+    /**
+     * This method opens the zero-count area around (row, col) without recursion,
+     * using the counts already stored in the board. Opened cells are added to the change set.
+     * @param row is the row number of a hidden zero-count cell.
+     * @param col is the column number of a hidden zero-count cell.
+     * @return returns the number of cells opened.
+     */
+    private int exposeZeroCountCells(int row, int col) {
+    	int opened = FloodFill.reveal(board, board.index(row, col), changes);
+    	if (MineMetrics.ENABLED){
+    		MineMetrics.cascade(opened);
+    	}
+    	return opened;
     }
     /**
      * This method flags cells, flagged count is increameted and the cell is set to flagged.
@@ -459,13 +617,25 @@ public class MineSweeper{
      * @return returns false if the cell is visibal amd true if not.
      */
     public boolean flagAt(int row, int col){
+    	boolean result = setFlagAt(row, col);
+    	moved(MoveListener.FLAG, row, col);
+    	return result;
+    }
+    
+    private boolean setFlagAt(int row, int col){
     	//flag's at cell located at (row,col)
         //return's whether the cell is flagged or not
-    	if(board.get(row, col).visible()) {
+    	changes.clear(colCount);
+    	if(row<0 || col<0 || row>=rowCount || col>=colCount) {
+    		throw new IndexOutOfBoundsException("Index(" + row + "," + col + ") out of bounds!");
+    	}
+    	int idx = board.index(row, col);
+    	if(board.isVisible(idx)) {
     		return false;
     	}
-    	else {
-    		board.get(row, col).setFlagged();
+    	else if(!board.isFlagged(idx)) {
+    		board.setFlagged(idx);
+    		changes.add(idx);
     		flaggedCount++;
     	}
     	
@@ -480,15 +650,24 @@ public class MineSweeper{
      * @return returns false if certain conditions are met and true otherwise.
      */
     public boolean unFlagAt(int row, int col){
+    	boolean result = clearFlagAt(row, col);
+    	moved(MoveListener.UNFLAG, row, col);
+    	return result;
+    }
+    
+    private boolean clearFlagAt(int row, int col){
     	//Un-flag at cell located at (row,col), 
-    	if(!board.get(row, col).isFlagged()|| row<0 || col<0|| row>board.getNumRow()||col>board.getNumCol()) {
+    	changes.clear(colCount);
+    	if(row<0 || col<0|| row>=rowCount||col>=colCount) {
     		return false;
     	}
-    	else if(!board.get(row, col).isFlagged() && !board.get(row, col).visible()||board.get(row, col).visible()){
+    	int idx = board.index(row, col);
+    	if(!board.isFlagged(idx) || board.isVisible(idx)){
     		return false;
     	}
     	else {
-    		board.get(row, col).unFlagged();
+    		board.unFlagged(idx);
+    		changes.add(idx);
     		flaggedCount--;
     	}
     	//return's whether the cell is updated from flagged to unflagged 
@@ -501,6 +680,116 @@ public class MineSweeper{
         return true;
       
     }
+    
+    /**
+     * This method chords at a revealed count: if the flags around it match the count,
+     * every other hidden neighbor is opened in one pass, and the zero-count areas they
+     * touch are opened by a single flood fill. A wrong flag means a mine is opened,
+     * which explodes the game. Status is updated once, and it counts as one click.
+     * @param row is the row number of a revealed count.
+     * @param col is the column number of a revealed count.
+     * @return returns the cells opened, the same set as getLastChanges(); empty if nothing opened.
+     */
+    public ChangeSet chordAt(int row, int col){
+    	ChangeSet result = chord(row, col);
+    	moved(MoveListener.CHORD, row, col);
+    	return result;
+    }
+    
+    private ChangeSet chord(int row, int col){
+    	changes.clear(colCount);
+    	if(row<0 || col<0 || row>=rowCount || col>=colCount) {
+    		return changes;
+    	}
+    	int idx = board.index(row, col);
+    	int count = board.getCount(idx);
+    	if(!board.isVisible(idx) || board.isFlagged(idx) || count <= 0) {
+    		return changes;
+    	}
+    	int rowMin = Math.max(0, row-1), rowMax = Math.min(rowCount-1, row+1);
+    	int colMin = Math.max(0, col-1), colMax = Math.min(colCount-1, col+1);
+    	int flags = 0;
+    	for(int i = rowMin; i <= rowMax; i++) {
+    		for(int j = colMin; j <= colMax; j++) {
+    			if(board.isFlagged(board.index(i, j))) {
+    				flags++;
+    			}
+    		}
+    	}
+    	if(flags != count) {
+    		return changes;
+    	}
+    	
+    	//open the unflagged hidden neighbors, then expand every zero-count one at once
+    	boolean exploded = false;
+    	for(int i = rowMin; i <= rowMax; i++) {
+    		for(int j = colMin; j <= colMax; j++) {
+    			int nbr = board.index(i, j);
+    			if(!board.isVisible(nbr) && !board.isFlagged(nbr)) {
+    				board.setVisible(nbr);
+    				changes.add(nbr);
+    				exploded |= board.hasMine(nbr);
+    			}
+    		}
+    	}
+    	if(changes.size() == 0) {
+    		return changes;
+    	}
+    	FloodFill.expand(board, changes, 0);
+    	clickCount++;
+    	clickedCount += changes.size();
+    	
+    	if(exploded) {
+    		status = Status.EXPLODED;
+    	}else if(clickedCount == rowCount * colCount - mineTotalCount) {
+    		status = Status.SOLVED;
+    	}else {
+    		status = Status.INGAME;
+    	}
+    	return changes;
+    }
+    
+    /**
+     * This method adds a listener that is told about every move after it is made.
+     * @param listener the listener to add
+     */
+    public void addMoveListener(MoveListener listener){
+    	MoveListener[] more = Arrays.copyOf(listeners, listeners.length + 1);
+    	more[listeners.length] = listener;
+    	listeners = more;
+    }
+    
+    /**
+     * This method removes a listener added by addMoveListener().
+     * @param listener the listener to remove
+     * @return returns true if the listener was found and removed.
+     */
+    public boolean removeMoveListener(MoveListener listener){
+    	for (int i = 0; i < listeners.length; i++){
+    		if (listeners[i] == listener){
+    			MoveListener[] fewer = Arrays.copyOf(listeners, listeners.length - 1);
+    			System.arraycopy(listeners, i + 1, fewer, i, listeners.length - i - 1);
+    			listeners = fewer;
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+    
+    //tell the listeners about a move that was just made
+    private void moved(int move, int row, int col){
+    	if (changes.size() > 0){
+    		version++;
+    	}
+    	notifyListeners(move, row, col);
+    }
+    
+    //tell the listeners about a change whose version is already bumped, e.g. an undo by MoveHistory
+    void notifyListeners(int move, int row, int col){
+    	for (MoveListener listener : listeners){
+    		listener.moved(this, move, row, col);
+    	}
+    }
 
     
        
@@ -611,7 +900,7 @@ public class MineSweeper{
 		//clicking on a zero-count cell
 		if (game.clickAt(0,0) == 0 && game.isVisible(0,0) && game.isVisible(4,0) &&
 			game.isVisible(0,4) && game.isVisible(3,2) && !game.isVisible(3,4) &&
-			!game.isVisible(4,3)){
+			!game.isVisible(4,3) && game.getLastChanges().size() == 19){
         	System.out.println("Yay 6");
         }
         //System.out.println(game);
@@ -638,6 +927,307 @@ public class MineSweeper{
 		//2 | | |1|?|F|
 		//3 | | |2|3|3|
 		//4 | | |1|?|1|
+		
+		//a no-guess game is the same for the same seed, and starts with its center opened
+		MineSweeper noGuess = MineSweeper.newNoGuessGame(7, Level.EASY);
+		if (noGuess.toString().equals(MineSweeper.newNoGuessGame(7, Level.EASY).toString()) &&
+			noGuess.isVisible(4,4) && noGuess.getCount(4,4) == 0 &&
+			noGuess.getStatus().equals("IN_GAME")){
+        	System.out.println("Yay 8");
+        }
+		
+		//cached games have the same board as new games; moves on one are not seen by the other
+		BoardCache cache = new BoardCache(4, 1<<20);
+		MineSweeper cached = MineSweeper.newCachedGame(cache, 10, Level.EASY);
+		MineSweeper shared = MineSweeper.newCachedGame(cache, 10, Level.EASY);
+		MineSweeper fresh = new MineSweeper(10, Level.EASY);
+		boolean same = true;
+		for (int row = 0; row < fresh.rowCount(); row++){
+			for (int col = 0; col < fresh.colCount(); col++){
+				same = same && cached.hasMine(row, col) == fresh.hasMine(row, col)
+					&& cached.getCount(row, col) == fresh.getCount(row, col);
+			}
+		}
+		cached.flagAt(0,0);
+		if (same && cache.hits() == 1 && cache.misses() == 1 && !shared.isFlagged(0,0)){
+        	System.out.println("Yay 9");
+        }
+		
+		//a saved game loads back in exactly the same state
+		try {
+			java.nio.ByteBuffer saved = java.nio.ByteBuffer.allocate(BoardIO.encodedSize(game));
+			BoardIO.encode(game, saved);
+			saved.flip();
+			MineSweeper loaded = BoardIO.decode(saved);
+			if (loaded.toString().equals(game.toString()) && loaded.clickCount() == game.clickCount() &&
+				loaded.hasMine(2,3) && loaded.getCount(1,3) == 2){
+	        	System.out.println("Yay 10");
+	        }
+		}
+		catch (java.io.IOException e){
+			System.out.println(e.getMessage());
+		}
+		
+		//undo puts back exactly the state before a move, and redo the state after it
+		MineSweeper undoGame = new MineSweeper(10, Level.TINY);
+		MoveHistory history = new MoveHistory(undoGame, 16, 64);
+		String before = undoGame.toString();
+		undoGame.clickAt(0,4);
+		String after = undoGame.toString();
+		int opened = undoGame.getLastChanges().size();
+		if (opened > 1 && history.undo() && undoGame.toString().equals(before) &&
+			undoGame.getLastChanges().size() == opened &&
+			history.redo() && undoGame.toString().equals(after) && !history.redo()){
+        	System.out.println("Yay 11");
+        }
+		
+		//a chord on a count with its mines flagged opens all its other neighbors, and nothing explodes
+		MineSweeper chordGame = new MineSweeper(10, Level.EASY);
+		chordGame.clickAt(0,4);
+		boolean chorded = false;
+		for (int row = 0; row < chordGame.rowCount() && !chorded; row++){
+			for (int col = 0; col < chordGame.colCount() && !chorded; col++){
+				if (!chordGame.isVisible(row, col) || chordGame.getCount(row, col) <= 0){
+					continue;
+				}
+				int hidden = 0;
+				for (int i = Math.max(0, row-1); i <= Math.min(chordGame.rowCount()-1, row+1); i++){
+					for (int j = Math.max(0, col-1); j <= Math.min(chordGame.colCount()-1, col+1); j++){
+						if (chordGame.hasMine(i, j)){
+							chordGame.flagAt(i, j);
+						}
+						else if (!chordGame.isVisible(i, j)){
+							hidden++;
+						}
+					}
+				}
+				if (hidden > 0){
+					int clicks = chordGame.clickCount();
+					ChangeSet chordOpened = chordGame.chordAt(row, col);
+					chorded = chordOpened.size() >= hidden && !chordGame.isExploded()
+						&& chordGame.clickCount() == clicks + 1 && chordGame.chordAt(row, col).size() == 0;
+				}
+			}
+		}
+		if (chorded){
+        	System.out.println("Yay 12");
+        }
+		
+		//an endless board opens from (0,0), and an evicted chunk comes back with the same mines and counts
+		EndlessBoard endless = new EndlessBoard(10, 600);
+		boolean endlessOk = endless.clickAt(0,0) == 0 && endless.lastChangeCount() > 1;
+		int endlessMines = 0;
+		for (int row = -70; row < 70; row++){
+			endlessMines += endless.hasMine(row, -70) ? 1 : 0;
+		}
+		String far = "" + endless.hasMine(-70, -70) + endless.getCount(-70, -70) + endless.getCount(-65, -64);
+		endless.evict(0, 0, 0);
+		int endlessAgain = 0;
+		for (int row = -70; row < 70; row++){
+			endlessAgain += endless.hasMine(row, -70) ? 1 : 0;
+		}
+		endlessOk = endlessOk && endlessMines == endlessAgain
+			&& far.equals("" + endless.hasMine(-70, -70) + endless.getCount(-70, -70) + endless.getCount(-65, -64));
+		//a read far away loads one more chunk, not the chunks in between
+		int loaded = endless.loadedChunks();
+		endless.hasMine(128000000, -128000000);
+		endlessOk = endlessOk && endless.loadedChunks() == loaded + 1;
+		if (endlessOk){
+        	System.out.println("Yay 13");
+        }
+		
+		//players clicking every safe cell at once solve a shared board exactly once
+		ConcurrentMineSweeper shared4 = new ConcurrentMineSweeper(10, Level.MEDIUM);
+		java.util.concurrent.atomic.AtomicInteger finished = new java.util.concurrent.atomic.AtomicInteger();
+		shared4.setFinishListener(end -> finished.incrementAndGet());
+		Thread[] players = new Thread[4];
+		for (int p = 0; p < players.length; p++){
+			final int first = p;
+			players[p] = new Thread(() -> {
+				for (int k = 0; k < shared4.rowCount()*shared4.colCount(); k++){
+					int cell = (k*7 + first*97) % (shared4.rowCount()*shared4.colCount());
+					int row = cell / shared4.colCount();
+					int col = cell % shared4.colCount();
+					if (!shared4.hasMine(row, col)){
+						shared4.clickAt(row, col);
+					}
+				}
+			});
+			players[p].start();
+		}
+		try {
+			for (Thread player : players){
+				player.join();
+			}
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		if (shared4.isSolved() && finished.get() == 1 &&
+			shared4.clickedCount() == shared4.rowCount()*shared4.colCount() - MINES_MEDIUM){
+        	System.out.println("Yay 14");
+        }
+		
+		//metrics summarize what is recorded (the game only records with -Dminesweeper.metrics=true)
+		MineMetrics.reset();
+		for (int cells = 1; cells <= 100; cells++){
+			MineMetrics.cascade(cells);
+		}
+		MineMetrics.countNbrMinesCalled();
+		MineMetrics.Snapshot metrics = MineMetrics.snapshot();
+		if (metrics.cascadeCells.count == 100 && metrics.cascadeCells.sum == 5050 && metrics.cascadeCells.max == 100
+			&& metrics.cascadeCells.p50 == 63 && metrics.cascadeCells.p99 == 100 && metrics.countNbrMinesCalls == 1){
+        	System.out.println("Yay 15");
+        }
+		MineMetrics.reset();
+
+		//a lazy game has the mines and counts of an eager one, and plays the same
+		MineSweeper lazy = MineSweeper.newLazyGame(21, 120, 160, 2400);
+		MineSweeper eager = new MineSweeper(21, Level.CUSTOM, 120, 160, 2400);
+		boolean lazySame = lazy.clickAt(60, 80) == eager.clickAt(60, 80)
+			&& lazy.getLastChanges().size() == eager.getLastChanges().size()
+			&& lazy.toString().equals(eager.toString());
+		for (int row = 0; row < 120 && lazySame; row++){
+			for (int col = 0; col < 160 && lazySame; col++){
+				lazySame = lazy.hasMine(row, col) == eager.hasMine(row, col)
+					&& lazy.getCount(row, col) == eager.getCount(row, col);
+			}
+		}
+		if (lazySame && MineSweeper.newLazyGame(3, Level.EASY).boardToString()
+				.equals(new MineSweeper(3, Level.EASY).boardToString())){
+        	System.out.println("Yay 16");
+        }
+
+		//a snapshot reads the board as it is, and goes stale with the next change
+		MineSweeper viewed = new MineSweeper(5, Level.MEDIUM);
+		BoardSnapshot view = viewed.snapshot();
+		int minesSeen = 0;
+		for (int idx = view.nextMine(0); idx >= 0; idx = view.nextMine(idx + 1)){
+			minesSeen += viewed.hasMine(idx / view.cols(), idx % view.cols()) ? 1 : 0;
+		}
+		boolean viewFresh = !view.isStale();
+		viewed.flagAt(0, 0);
+		boolean staleAfterMove = view.isStale() && view.isFlagged(view.index(0, 0));
+		BoardSnapshot again = viewed.snapshot();
+		viewed.flagAt(0, 0); //already flagged: nothing changes
+		if (minesSeen == MINES_MEDIUM && viewFresh && staleAfterMove && !again.isStale()
+				&& again.version() > view.version() && Long.bitCount(again.flaggedWord(0)) == 1){
+        	System.out.println("Yay 17");
+        }
+
+		//a journal with a move outside the board among valid ones replays every valid move
+		try {
+			java.nio.file.Path journalFile = java.nio.file.Files.createTempFile("mines", ".journal");
+			MineSweeper journaled = new MineSweeper(10, Level.EASY);
+			MoveJournal journal = new MoveJournal(journaled, journalFile, 2);
+			journaled.flagAt(0, 0);
+			journaled.clickAt(-1, 0);
+			journaled.unFlagAt(0, 0);
+			journaled.clickAt(4, 4);
+			journaled.flagAt(8, 8);
+			journal.close();
+			JournalReplayer replayer = new JournalReplayer(journalFile);
+			if (journal.moveCount() == 4 && replayer.moveCount() == 4 && replayer.checkpointCount() == 3
+					&& replayer.replayAll().toString().equals(journaled.toString())){
+	        	System.out.println("Yay 18");
+	        }
+			java.nio.file.Files.delete(journalFile);
+		}
+		catch (java.io.IOException e){
+			System.out.println(e.getMessage());
+		}
+
+		//a saved state with a count no board can hold does not load
+		java.nio.ByteBuffer corrupt = java.nio.ByteBuffer.allocate(BoardIO.encodedSize(game));
+		BoardIO.encode(game, corrupt);
+		corrupt.put(BoardIO.HEADER_BYTES + 3*8*game.bitBoard().planeWords(), (byte)0x99);
+		corrupt.flip();
+		try {
+			BoardIO.decode(corrupt);
+		}
+		catch (java.io.IOException e){
+        	System.out.println("Yay 19");
+		}
+
+		//undo and redo reach a journal on the same game, which replays to the live state
+		try {
+			java.nio.file.Path journalFile = java.nio.file.Files.createTempFile("mines", ".journal");
+			MineSweeper audited = new MineSweeper(10, Level.EASY);
+			MoveHistory auditHistory = new MoveHistory(audited, 16, 256);
+			MoveJournal audit = new MoveJournal(audited, journalFile);
+			audited.flagAt(0, 0);
+			auditHistory.undo();
+			audited.flagAt(1, 1);
+			audited.clickAt(4, 4);
+			auditHistory.undo();
+			auditHistory.redo();
+			audit.close();
+			JournalReplayer auditReplayer = new JournalReplayer(journalFile);
+			MineSweeper replayed = auditReplayer.replayAll();
+			if (auditReplayer.moveCount() == 6 && replayed.toString().equals(audited.toString())
+					&& replayed.flaggedCount() == 1 && !replayed.isFlagged(0, 0)
+					&& auditReplayer.seek(2).toString().equals(new MineSweeper(10, Level.EASY).toString())){
+	        	System.out.println("Yay 20");
+	        }
+			java.nio.file.Files.delete(journalFile);
+		}
+		catch (java.io.IOException e){
+			System.out.println(e.getMessage());
+		}
+
+		//a game re-dealt or replaced outside any move still replays to its live state
+		try {
+			java.nio.file.Path journalFile = java.nio.file.Files.createTempFile("mines", ".journal");
+			MineSweeper redealt = new MineSweeper(10, Level.EASY);
+			MoveJournal redealtJournal = new MoveJournal(redealt, journalFile);
+			redealt.clickAt(4, 4);
+			redealt.initBoard(11);
+			redealt.flagAt(0, 0);
+			redealtJournal.flush();
+			boolean afterMove = new JournalReplayer(journalFile).replayAll().toString().equals(redealt.toString());
+			redealt.setBoard(new MineSweeper(12, Level.EASY).getBoard(), 10);
+			redealtJournal.close();
+			if (afterMove && new JournalReplayer(journalFile).replayAll().toString().equals(redealt.toString())){
+	        	System.out.println("Yay 21");
+	        }
+			java.nio.file.Files.delete(journalFile);
+		}
+		catch (java.io.IOException e){
+			System.out.println(e.getMessage());
+		}
+
+		//an engine kept over several guesses and a new board agrees with a fresh one
+		MineSweeper guessed = new MineSweeper(135, Level.HARD);
+		AutoSolver guesser = new AutoSolver(guessed);
+		ProbabilityEngine kept = new ProbabilityEngine(guessed);
+		boolean agrees = true;
+		int guesses = 0;
+		for (int deal = 135; deal < 145; deal++){
+			guessed.initBoard(deal);
+			guesser.reset();
+			guesser.clickAt(8, 15);
+			while (!guessed.isSolved() && !guessed.isExploded()){
+				guesser.solve();
+				if (!guesser.needsGuess()){
+					continue;
+				}
+				kept.compute();
+				ProbabilityEngine anew = new ProbabilityEngine(guessed);
+				anew.compute();
+				for (int i = 0; i < guessed.rowCount(); i++){
+					for (int j = 0; j < guessed.colCount(); j++){
+						agrees &= Math.abs(kept.probability(i, j) - anew.probability(i, j)) < 1e-9;
+					}
+				}
+				int idx = kept.bestGuess(null);
+				agrees &= idx == anew.bestGuess(null);
+				guesser.clickAt(idx / guessed.colCount(), idx % guessed.colCount());
+				guesses++;
+			}
+		}
+		if (agrees && guesses > 3){
+        	System.out.println("Yay 22");
+        }
     } 
 
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+/**
+ * Undo and redo for the moves of a MineSweeper game.
+ *
+ * For every move that changed something it records the cells the move changed
+ * (from getLastChanges()) and the counters and status before and after it. Undo
+ * and redo only touch those cells, so they cost time proportional to the move,
+ * whatever the size of the board. Cells are kept in one int ring buffer and the
+ * per-move data in parallel primitive arrays; once maxMoves moves or maxCells
+ * cells are stored, the oldest moves are dropped, so memory stays flat.
+ *
+ * Undo and redo change the game directly, leave the cells they changed in
+ * getLastChanges(), and then tell the game's listeners with MoveListener.UNDO or
+ * REDO, so e.g. a MoveJournal records them. If the game changes without a move
+ * (e.g. initBoard(), or another history's undo), the history is cleared.
+ */
+public class MoveHistory implements MoveListener{
+
+	/**
+	 * Game whose moves are recorded.
+	 */
+	private final MineSweeper game;
+
+	/**
+	 * Flat indexes of the changed cells of the stored moves, as a ring buffer.
+	 */
+	private final int[] cells;
+
+	/**
+	 * Per move, by slot (move number % maxMoves): move code, position of its first
+	 * cell (counted from the first cell ever stored) and number of cells.
+	 */
+	private final byte[] moveCode;
+	private final long[] cellStart;
+	private final int[] cellCount;
+
+	/**
+	 * Per move, by slot: exposed cells, flagged cells, clicks and status before and after the move.
+	 */
+	private final int[] clickedBefore, flaggedBefore, clicksBefore;
+	private final int[] clickedAfter, flaggedAfter, clicksAfter;
+	private final byte[] statusBefore, statusAfter;
+
+	/**
+	 * Moves [firstMove, currentMove) can be undone, moves [currentMove, lastMove) redone.
+	 */
+	private long firstMove, currentMove, lastMove;
+
+	/**
+	 * Position after the last cell stored.
+	 */
+	private long cellEnd;
+
+	/**
+	 * Counters and status of the game after the last move seen.
+	 */
+	private int clicked, flagged, clicks;
+	private MineSweeper.Status status;
+
+	/**
+	 * True while this history tells the listeners about its own undo or redo.
+	 */
+	private boolean notifying;
+
+
+	/**
+	 * Constructor. Starts recording the moves of a game.
+	 * @param game the game to record
+	 * @param maxMoves most moves kept
+	 * @param maxCells most changed cells kept, over all moves kept
+	 */
+	public MoveHistory(MineSweeper game, int maxMoves, int maxCells){
+		if (maxMoves <= 0 || maxCells <= 0){
+			throw new IllegalArgumentException("Invalid history size: " + maxMoves + " moves, " + maxCells + " cells!");
+		}
+		this.game = game;
+		cells = new int[maxCells];
+		moveCode = new byte[maxMoves];
+		cellStart = new long[maxMoves];
+		cellCount = new int[maxMoves];
+		clickedBefore = new int[maxMoves];
+		flaggedBefore = new int[maxMoves];
+		clicksBefore = new int[maxMoves];
+		clickedAfter = new int[maxMoves];
+		flaggedAfter = new int[maxMoves];
+		clicksAfter = new int[maxMoves];
+		statusBefore = new byte[maxMoves];
+		statusAfter = new byte[maxMoves];
+		clear();
+		game.addMoveListener(this);
+	}
+
+	/**
+	 * The method that forgets every stored move and takes the current state of the game as the start.
+	 */
+	public void clear(){
+		firstMove = currentMove = lastMove = 0;
+		cellEnd = 0;
+		clicked = game.clickedCount();
+		flagged = game.flaggedCount();
+		clicks = game.clickCount();
+		status = game.status();
+	}
+
+	/**
+	 * The method that stops recording.
+	 */
+	public void detach(){
+		game.removeMoveListener(this);
+	}
+
+	/**
+	 * The method that reports whether there is a move to undo.
+	 * @return true if undo() would change the game
+	 */
+	public boolean canUndo(){ return currentMove > firstMove; }
+
+	/**
+	 * The method that reports whether there is a move to redo.
+	 * @return true if redo() would change the game
+	 */
+	public boolean canRedo(){ return currentMove < lastMove; }
+
+	/**
+	 * The method that reports the number of moves that can be undone.
+	 * @return number of moves
+	 */
+	public int undoCount(){ return (int)(currentMove - firstMove); }
+
+	@Override
+	public void moved(MineSweeper game, int move, int row, int col){
+		if (move == UNDO || move == REDO){
+			if (!notifying){
+				//undone or redone by another history: what is stored no longer applies
+				clear();
+			}
+			return;
+		}
+		ChangeSet changes = game.getLastChanges();
+		int n = changes.size();
+		boolean consistent = move == CLICK || move == CHORD
+			? game.clickedCount() == clicked + n && game.flaggedCount() == flagged
+			: game.clickedCount() == clicked && game.flaggedCount() == flagged + (move == UNFLAG ? -n : n);
+		if (!consistent){
+			//the game was changed behind our back: what is stored no longer applies
+			clear();
+			return;
+		}
+		if (n > 0){
+			record(move, changes);
+		}
+		clicked = game.clickedCount();
+		flagged = game.flaggedCount();
+		clicks = game.clickCount();
+		status = game.status();
+	}
+
+	//store a move that changed n > 0 cells, dropping the redo moves and the oldest moves as needed
+	private void record(int move, ChangeSet changes){
+		int n = changes.size();
+		if (n > cells.length){
+			//too large to keep: nothing before it can be undone either
+			firstMove = currentMove = lastMove = 0;
+			cellEnd = 0;
+			return;
+		}
+		//drop the moves that could be redone, and reuse their cells
+		if (currentMove > firstMove){
+			cellEnd = end(currentMove - 1);
+		}
+		else if (currentMove < lastMove){
+			cellEnd = cellStart[slot(currentMove)];
+		}
+		lastMove = currentMove;
+		while (lastMove - firstMove == moveCode.length
+				|| (firstMove < lastMove && cellEnd + n - cellStart[slot(firstMove)] > cells.length)){
+			firstMove++;
+		}
+
+		int s = slot(lastMove);
+		moveCode[s] = (byte)move;
+		cellStart[s] = cellEnd;
+		cellCount[s] = n;
+		clickedBefore[s] = clicked;
+		flaggedBefore[s] = flagged;
+		clicksBefore[s] = clicks;
+		statusBefore[s] = (byte)status.ordinal();
+		clickedAfter[s] = game.clickedCount();
+		flaggedAfter[s] = game.flaggedCount();
+		clicksAfter[s] = game.clickCount();
+		statusAfter[s] = (byte)game.status().ordinal();
+		for (int i = 0; i < n; i++){
+			cells[(int)((cellEnd + i) % cells.length)] = changes.index(i);
+		}
+		cellEnd += n;
+		lastMove++;
+		currentMove = lastMove;
+	}
+
+	/**
+	 * The method that reverts the last move not yet undone.
+	 * @return true if a move was undone; false if there was none
+	 */
+	public boolean undo(){
+		if (!canUndo()){
+			return false;
+		}
+		currentMove--;
+		int s = slot(currentMove);
+		apply(s, false);
+		restore(clickedBefore[s], flaggedBefore[s], clicksBefore[s], statusBefore[s]);
+		notifyListeners(UNDO);
+		return true;
+	}
+
+	/**
+	 * The method that makes the last undone move again.
+	 * @return true if a move was redone; false if there was none
+	 */
+	public boolean redo(){
+		if (!canRedo()){
+			return false;
+		}
+		int s = slot(currentMove);
+		currentMove++;
+		apply(s, true);
+		restore(clickedAfter[s], flaggedAfter[s], clicksAfter[s], statusAfter[s]);
+		notifyListeners(REDO);
+		return true;
+	}
+
+	//set the cells of a move to their state after it (forward) or before it
+	private void apply(int s, boolean forward){
+		BitBoard board = game.bitBoard();
+		ChangeSet changes = game.getLastChanges();
+		changes.clear(board.cols());
+		long start = cellStart[s];
+		for (int i = 0; i < cellCount[s]; i++){
+			int idx = cells[(int)((start + i) % cells.length)];
+			switch (moveCode[s]){
+				case FLAG:
+					if (forward) board.setFlagged(idx); else board.unFlagged(idx);
+					break;
+				case UNFLAG:
+					if (forward) board.unFlagged(idx); else board.setFlagged(idx);
+					break;
+				default:
+					//the cells the move opened
+					if (forward) board.setVisible(idx); else board.setInvisible(idx);
+			}
+			changes.add(idx);
+		}
+	}
+
+	private void notifyListeners(int move){
+		notifying = true;
+		try {
+			game.notifyListeners(move, -1, -1);
+		}
+		finally {
+			notifying = false;
+		}
+	}
+
+	private void restore(int clickedCount, int flaggedCount, int clickCount, byte statusOrdinal){
+		MineSweeper.Status restored = MineSweeper.Status.values()[statusOrdinal];
+		game.restoreState(clickedCount, flaggedCount, clickCount, restored);
+		clicked = clickedCount;
+		flagged = flaggedCount;
+		clicks = clickCount;
+		status = restored;
+	}
+
+	private int slot(long move){ return (int)(move % moveCode.length); }
+
+	private long end(long move){ return cellStart[slot(move)] + cellCount[slot(move)]; }
+}
@@ -0,0 +1,241 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records every move of a MineSweeper game to an append-only journal file;
+ * moves that change nothing (e.g. outside the board) are not recorded.
+ *
+ * File layout: magic "MSWJ" and version (4 bytes each, little-endian), then records:
+ *  - a move: its move code (MoveListener.CLICK, FLAG, UNFLAG, CHORD, UNDO or REDO)
+ *    in one byte, then the row and the column as unsigned varints (7 bits per byte);
+ *  - a checkpoint: CHECKPOINT in one byte, the number of moves before it and
+ *    the length of the state as varints, then the state as written by BoardIO.
+ * The journal starts with a checkpoint, and one is added every checkpointInterval
+ * moves, so JournalReplayer can jump to any move from the checkpoint before it.
+ *
+ * Some changes cannot be replayed from a move record: an undo or redo (counted as
+ * a move), and a change made outside any move, e.g. initBoard() or setBoard(),
+ * which the game's version() gives away at the next move or at close(). A
+ * checkpoint is written right after them, so replaying starts from the state they left.
+ *
+ * Records go into a direct buffer that is written to the channel when full, so a
+ * move costs a few byte writes. Call close() to flush the last records.
+ */
+public class MoveJournal implements MoveListener, Closeable{
+
+	/**
+	 * First 4 bytes of a journal: "MSWJ".
+	 */
+	public static final int MAGIC = 0x4A57534D;
+
+	/**
+	 * Version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Record code of a checkpoint.
+	 */
+	public static final int CHECKPOINT = 0x10;
+
+	/**
+	 * Number of moves between checkpoints, unless given.
+	 */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 4096;
+
+	/**
+	 * Largest size of a move record: a code and two 5-byte varints.
+	 */
+	private static final int MAX_MOVE_BYTES = 11;
+
+	/**
+	 * Game being recorded.
+	 */
+	private final MineSweeper game;
+
+	/**
+	 * Channel of the journal file.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Records not yet written to the channel.
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * Number of moves between checkpoints.
+	 */
+	private final int checkpointInterval;
+
+	/**
+	 * Number of moves recorded.
+	 */
+	private int moveCount;
+
+	/**
+	 * Version of the game the records so far replay to.
+	 */
+	private long journaledVersion;
+
+
+	/**
+	 * Constructor. Creates (or replaces) the journal file, records the current
+	 * state of the game, and starts recording its moves.
+	 * @param game the game to record
+	 * @param file path of the journal
+	 * @throws IOException if the file cannot be written
+	 */
+	public MoveJournal(MineSweeper game, Path file) throws IOException{
+		this(game, file, DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	/**
+	 * Constructor. Creates (or replaces) the journal file, records the current
+	 * state of the game, and starts recording its moves.
+	 * @param game the game to record
+	 * @param file path of the journal
+	 * @param checkpointInterval number of moves between checkpoints
+	 * @throws IOException if the file cannot be written
+	 */
+	public MoveJournal(MineSweeper game, Path file, int checkpointInterval) throws IOException{
+		if (checkpointInterval <= 0){
+			throw new IllegalArgumentException("Invalid checkpoint interval: " + checkpointInterval + "!");
+		}
+		this.game = game;
+		this.checkpointInterval = checkpointInterval;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		checkpoint();
+		game.addMoveListener(this);
+	}
+
+	/**
+	 * The method that reports the number of moves recorded so far.
+	 * @return number of moves
+	 */
+	public int moveCount(){ return moveCount; }
+
+	@Override
+	public void moved(MineSweeper game, int move, int row, int col){
+		boolean undoRedo = move == UNDO || move == REDO;
+		//a move that changed nothing, e.g. outside the board, replays as nothing too
+		if (!undoRedo && game.getLastChanges().size() == 0){
+			return;
+		}
+		//the move bumped the version once; any other bump was a change outside a move
+		boolean needsState = undoRedo || game.version() - 1 != journaledVersion;
+		try {
+			if (buffer.remaining() < MAX_MOVE_BYTES){
+				flush();
+			}
+			buffer.put((byte)move);
+			putVarint(buffer, row);
+			putVarint(buffer, col);
+			moveCount++;
+			if (needsState || moveCount % checkpointInterval == 0){
+				checkpoint();
+			}
+			else {
+				journaledVersion = game.version();
+			}
+		}
+		catch (IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * The method that records the current state of the game now, in addition to
+	 * the periodic checkpoints, e.g. before a long pause.
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void checkpoint() throws IOException{
+		int size = BoardIO.encodedSize(game);
+		if (buffer.remaining() < MAX_MOVE_BYTES + size){
+			flush();
+		}
+		buffer.put((byte)CHECKPOINT);
+		putVarint(buffer, moveCount);
+		putVarint(buffer, size);
+		if (buffer.remaining() >= size){
+			BoardIO.encode(game, buffer);
+		}
+		else {
+			//larger than the buffer: write it on its own
+			flush();
+			ByteBuffer state = ByteBuffer.allocate(size);
+			BoardIO.encode(game, state);
+			state.flip();
+			write(state);
+		}
+		journaledVersion = game.version();
+	}
+
+	/**
+	 * The method that writes the buffered records to the file.
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void flush() throws IOException{
+		buffer.flip();
+		write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * The method that stops recording, writes the buffered records and closes the file.
+	 * @throws IOException if the journal cannot be written
+	 */
+	@Override
+	public void close() throws IOException{
+		game.removeMoveListener(this);
+		try {
+			if (game.version() != journaledVersion){
+				//changed outside a move since the last record
+				checkpoint();
+			}
+			flush();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+	private void write(ByteBuffer data) throws IOException{
+		while (data.hasRemaining()){
+			channel.write(data);
+		}
+	}
+
+	//unsigned LEB128: 7 bits per byte, low bits first, high bit set on all but the last byte
+	static void putVarint(ByteBuffer out, int value){
+		while ((value & ~0x7F) != 0){
+			out.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte)value);
+	}
+
+	//read a varint written by putVarint; every int is a valid value, so a buffer
+	//that ends inside it throws BufferUnderflowException, as ByteBuffer.get() does
+	static int getVarint(ByteBuffer in){
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7){
+			byte b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0){
+				return value;
+			}
+		}
+		throw new BufferUnderflowException();
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * Receives every move made on a MineSweeper game, after the move is applied,
+ * and every undo and redo of a MoveHistory on it. game.getLastChanges() holds
+ * the cells the move, undo or redo changed.
+ */
+public interface MoveListener{
+
+	/**
+	 * Move code of clickAt().
+	 */
+	int CLICK = 0;
+
+	/**
+	 * Move code of flagAt().
+	 */
+	int FLAG = 1;
+
+	/**
+	 * Move code of unFlagAt().
+	 */
+	int UNFLAG = 2;
+
+	/**
+	 * Move code of chordAt().
+	 */
+	int CHORD = 3;
+
+	/**
+	 * Move code of MoveHistory.undo(); row and column are -1.
+	 */
+	int UNDO = 4;
+
+	/**
+	 * Move code of MoveHistory.redo(); row and column are -1.
+	 */
+	int REDO = 5;
+
+	/**
+	 * The method called after each clickAt(), flagAt(), unFlagAt() or chordAt() call,
+	 * including calls that did not change anything, and after each undo or redo.
+	 * @param game the game the move was made on
+	 * @param move CLICK, FLAG, UNFLAG, CHORD, UNDO or REDO
+	 * @param row row index passed to the move, -1 for UNDO and REDO
+	 * @param col column index passed to the move, -1 for UNDO and REDO
+	 */
+	void moved(MineSweeper game, int move, int row, int col);
+}
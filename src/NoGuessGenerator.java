@@ -0,0 +1,155 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Generates boards that can be solved by logic alone from a safe first click
+ * on the center cell.
+ *
+ * Candidate i of a seed is placed from its own seed, derived from (seed, i),
+ * with the 3x3 block around the center kept free. Each candidate is played by
+ * AutoSolver; when it is stuck, ProbabilityEngine is asked for a cell that is
+ * safe in every solution, and the candidate is rejected if there is none.
+ *
+ * Candidates are checked in parallel. Workers take the next index from a shared
+ * counter and stop once it is past the smallest solvable index found so far, so
+ * the result is always the first solvable candidate, whatever the timing.
+ */
+public class NoGuessGenerator{
+
+	/**
+	 * Number of candidates tried before giving up, unless given.
+	 */
+	public static final int DEFAULT_MAX_CANDIDATES = 100000;
+
+	/**
+	 * Board size and number of mines.
+	 */
+	private final int rows, cols, mineCount;
+
+	/**
+	 * Number of candidates tried before giving up.
+	 */
+	private final int maxCandidates;
+
+	/**
+	 * Number of candidates checked by the last generate(), including the ones
+	 * checked past the result before the workers stopped.
+	 */
+	private final AtomicInteger checked = new AtomicInteger();
+
+
+	/**
+	 * Constructor.
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @param mineCount number of mines
+	 */
+	public NoGuessGenerator(int rows, int cols, int mineCount){
+		this(rows, cols, mineCount, DEFAULT_MAX_CANDIDATES);
+	}
+
+	/**
+	 * Constructor.
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @param mineCount number of mines
+	 * @param maxCandidates number of candidates tried before giving up
+	 */
+	public NoGuessGenerator(int rows, int cols, int mineCount, int maxCandidates){
+		if (maxCandidates <= 0){
+			throw new IllegalArgumentException("Invalid candidate count: " + maxCandidates + "!");
+		}
+		this.rows = rows;
+		this.cols = cols;
+		this.mineCount = mineCount;
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * The method that reports the row of the safe first click.
+	 * @return row index
+	 */
+	public int safeRow(){ return rows/2; }
+
+	/**
+	 * The method that reports the column of the safe first click.
+	 * @return column index
+	 */
+	public int safeCol(){ return cols/2; }
+
+	/**
+	 * The method that reports how many candidates the last generate() checked.
+	 * @return number of candidates checked
+	 */
+	public int checked(){ return checked.get(); }
+
+	/**
+	 * The method that generates the first solvable candidate board for a seed.
+	 * The same seed always gives the same board.
+	 * @param seed seed of the candidates
+	 * @return the board with its mines and counts; nothing is visible or flagged
+	 * @throws IllegalStateException if none of the candidates is solvable
+	 */
+	public BitBoard generate(int seed){
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+		checked.set(0);
+
+		int workers = Runtime.getRuntime().availableProcessors();
+		IntStream.range(0, workers).parallel().forEach(w -> {
+			for (int i = next.getAndIncrement(); i < maxCandidates && i < best.get(); i = next.getAndIncrement()){
+				checked.incrementAndGet();
+				if (isSolvable(candidate(seed, i))){
+					best.accumulateAndGet(i, Math::min);
+				}
+			}
+		});
+
+		if (best.get() == Integer.MAX_VALUE){
+			throw new IllegalStateException("No board without guesses in " + maxCandidates
+				+ " candidates for a " + rows + " x " + cols + " board with " + mineCount + " mines!");
+		}
+		return candidate(seed, best.get());
+	}
+
+	//board of candidate i, with counts
+	private BitBoard candidate(int seed, int i){
+		BitBoard board = new BitBoard(rows, cols);
+		MinePlacer.place(board, candidateSeed(seed, i), mineCount, safeRow(), safeCol());
+		CountBuilder.build(board);
+		return board;
+	}
+
+	//mix seed and candidate index (SplitMix64 finalizer), so nearby seeds give unrelated candidates
+	private static int candidateSeed(int seed, int i){
+		long z = ((long)seed << 32 | (i & 0xFFFFFFFFL)) + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (int)(z ^ (z >>> 31));
+	}
+
+	//play the board from the safe cell, only making moves that are certain
+	private boolean isSolvable(BitBoard board){
+		MineSweeper game = new MineSweeper(board, mineCount);
+		AutoSolver solver = new AutoSolver(game);
+		ProbabilityEngine engine = null;
+		solver.clickAt(safeRow(), safeCol());
+		while (!game.isSolved() && !game.isExploded()){
+			solver.solve();
+			if (!solver.needsGuess()){
+				continue;
+			}
+			//the rules are stuck: look for a cell that is safe in every solution
+			if (engine == null){
+				engine = new ProbabilityEngine(game);
+			}
+			engine.compute();
+			int idx = engine.bestGuess(null);
+			if (engine.probability(idx / cols, idx % cols) != 0){
+				return false;
+			}
+			solver.clickAt(idx / cols, idx % cols);
+		}
+		return game.isSolved();
+	}
+}
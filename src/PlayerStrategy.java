@@ -0,0 +1,17 @@
+import java.util.Random;
+
+/**
+ * A way of playing a MineSweeper game without a display, used by GameSimulator.
+ * One instance is only ever used by one thread at a time, so it may keep
+ * reusable buffers between games.
+ */
+public interface PlayerStrategy{
+
+	/**
+	 * The method that plays a freshly initialized game until it is solved or exploded,
+	 * or until the strategy gives up.
+	 * @param game the game to play
+	 * @param random random numbers for the strategy, seeded from the game's seed
+	 */
+	void play(MineSweeper game, Random random);
+}
@@ -0,0 +1,1019 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the exact probability that each hidden cell of a MineSweeper game has a mine,
+ * given the revealed counts, the flags (assumed correct) and mineLeft().
+ *
+ * The frontier (hidden cells next to a revealed count) is split into components:
+ * two cells are in the same component when some count sees both. Each component
+ * is enumerated on its own by backtracking, which gives, per number of mines m in
+ * it, the number of solutions and how many of them put a mine on each cell.
+ * Larger components are counted by state instead (see countByState()), in time
+ * that grows with their length rather than with their number of solutions.
+ * The components are then combined by convolution, with every total weighted by
+ * C(U, mineLeft - total): the ways to place the rest on the U cells off the frontier.
+ *
+ * A component's result only depends on its cells and the counts around them.
+ * compute() compares the bitplanes of the board with those it saw last time and
+ * only rebuilds the components within two cells of a changed cell (a change alters
+ * the counts around it, and those see the cells around them); the other components
+ * keep their result without the board being rescanned (a new board is rebuilt
+ * as a whole). A rebuilt component with the same signature as before keeps its
+ * result too, and the rest are solved in parallel. Work arrays are kept between
+ * calls, so a compute() after a few moves costs about the counting of the
+ * components those moves touched.
+ */
+public class ProbabilityEngine{
+
+	/**
+	 * Components are only solved in parallel when the cells to enumerate add up to at least this.
+	 */
+	private static final int PARALLEL_CELLS = 32;
+
+	/**
+	 * Components up to this many cells are enumerated cell by cell; larger ones are counted by state.
+	 */
+	private static final int ENUMERATE_CELLS = 12;
+
+	/**
+	 * Largest number of open constraints a state can hold (4 bits each in a long).
+	 */
+	private static final int MAX_WIDTH = 16;
+
+	/**
+	 * Probabilities closer than this are treated as equal when choosing a guess.
+	 */
+	private static final double TIE = 1e-9;
+
+	/**
+	 * Game the probabilities are computed for.
+	 */
+	private final MineSweeper game;
+
+	/**
+	 * Board size of the game.
+	 */
+	private final int rows, cols;
+
+	/**
+	 * Mine probability of every frontier cell by flat index, as of the last compute().
+	 */
+	private final double[] probability;
+
+	/**
+	 * Component of every frontier cell by flat index; null for cells off the frontier.
+	 */
+	private final Component[] owner;
+
+	/**
+	 * Mine, visible and flagged bitplanes of the board as of the last compute(),
+	 * laid out as in BoardSnapshot.mineWord().
+	 */
+	private final long[] seenMines, seenVisible, seenFlagged;
+
+	/**
+	 * Work array: the bits that differ between the board and those planes.
+	 */
+	private final long[] changed;
+
+	/**
+	 * Components of the last compute(); the first componentCount are used.
+	 */
+	private Component[] components = new Component[16];
+
+	/**
+	 * Number of components of the last compute(), and how many were not enumerated again.
+	 */
+	private int componentCount, cacheHits;
+
+	/**
+	 * Components of the last compute() by signature, so a rebuilt one that did not change is reused.
+	 */
+	private final Map<Key, Component> cache = new HashMap<>();
+
+	/**
+	 * Mine probability of the hidden cells off the frontier, as of the last compute().
+	 */
+	private double offProbability;
+
+	/**
+	 * Work arrays kept between calls: cells to rebuild from (seeds), the cells and
+	 * constraints of the component being built, components dropped and to solve.
+	 */
+	private int[] seeds = new int[64];
+	private final int[] cells, cons;
+	private Component[] dropped = new Component[16], misses = new Component[16];
+	private int seedCount, consCount, droppedCount;
+
+	/**
+	 * Per cell: the pass of compute() that last reached it (see epoch); saves clearing marks.
+	 */
+	private final int[] stamp;
+	private int epoch;
+
+	/**
+	 * Work arrays of combine(): mine count distributions of the components before c
+	 * (prefix[c]) and from c on (suffix[c]), and their lengths.
+	 */
+	private double[][] prefix = new double[17][], suffix = new double[17][];
+	private int[] prefixLength = new int[17], suffixLength = new int[17];
+	private double[] others = new double[16], g = new double[16], weight = new double[16], logs = new double[16];
+
+
+	/**
+	 * Constructor.
+	 * @param game the game to compute probabilities for
+	 */
+	public ProbabilityEngine(MineSweeper game){
+		this.game = game;
+		this.rows = game.rowCount();
+		this.cols = game.colCount();
+		int size = rows*cols;
+		probability = new double[size];
+		owner = new Component[size];
+		stamp = new int[size];
+		cells = new int[size];
+		cons = new int[size];
+		int words = (size + 63) >>> 6;
+		seenMines = new long[words];
+		seenVisible = new long[words];
+		seenFlagged = new long[words];
+		changed = new long[words];
+	}
+
+	/**
+	 * The method that (re)computes the probabilities for the current state of the game.
+	 * Revealed cells get 0 and flagged cells get 1.
+	 */
+	public void compute(){
+		BoardSnapshot view = game.snapshot();
+		int size = rows*cols;
+
+		//find the cells that changed since the last call
+		int unknown = 0;
+		int changes = 0;
+		for (int w=0; w<seenVisible.length; w++){
+			long mines = view.mineWord(w);
+			long visible = view.visibleWord(w);
+			long flagged = view.flaggedWord(w);
+			changed[w] = (mines ^ seenMines[w]) | (visible ^ seenVisible[w]) | (flagged ^ seenFlagged[w]);
+			seenMines[w] = mines;
+			seenVisible[w] = visible;
+			seenFlagged[w] = flagged;
+			long inBoard = (w+1) << 6 <= size ? -1L : (1L << size) - 1;
+			unknown += Long.bitCount(~(visible | flagged) & inBoard);
+			changes += Long.bitCount(changed[w]);
+		}
+
+		//drop the components near them; after a new board, simply all of them
+		seedCount = 0;
+		droppedCount = 0;
+		epoch++;
+		if (changes > size/8){
+			for (int c=0; c<componentCount; c++){
+				drop(components[c]);
+			}
+			for (int idx=0; idx<size; idx++){
+				addSeed(idx);
+			}
+		}
+		else {
+			for (int w=0; w<changed.length; w++){
+				for (long bits = changed[w]; bits != 0; bits &= bits-1){
+					markAround((w << 6) + Long.numberOfTrailingZeros(bits));
+				}
+			}
+		}
+
+		//rebuild components from the hidden cells near the changes; reuse unchanged ones
+		epoch++;
+		int missCount = 0;
+		int missCells = 0;
+		int listed = componentCount;
+		for (int s=0; s<seedCount; s++){
+			int start = seeds[s];
+			if (stamp[start] == epoch || owner[start] != null || view.isVisible(start) || view.isFlagged(start)){
+				continue;
+			}
+			int cellCount = collect(view, start);
+			if (consCount == 0){
+				continue; //off the frontier
+			}
+			Arrays.sort(cells, 0, cellCount);
+			Arrays.sort(cons, 0, consCount);
+			Key key = key(cellCount, consCount);
+			Component component = cache.get(key);
+			if (component == null){
+				component = new Component(Arrays.copyOf(cells, cellCount), Arrays.copyOf(cons, consCount), key);
+				if (missCount == misses.length){
+					misses = Arrays.copyOf(misses, missCount*2);
+				}
+				misses[missCount++] = component;
+				missCells += component.cells.length;
+			}
+			for (int cell : component.cells){
+				owner[cell] = component;
+			}
+			if (listed == components.length){
+				components = Arrays.copyOf(components, listed*2);
+			}
+			components[listed++] = component;
+		}
+		Component[] toSolve = misses;
+		if (missCount > 1 && missCells >= PARALLEL_CELLS){
+			IntStream.range(0, missCount).parallel().forEach(c -> toSolve[c].solve());
+		}
+		else {
+			for (int c=0; c<missCount; c++){
+				toSolve[c].solve();
+			}
+		}
+
+		//keep the components that still own their cells, each once
+		int comps = 0;
+		int frontier = 0;
+		for (int c=0; c<listed; c++){
+			Component component = components[c];
+			if (owner[component.cells[0]] == component && component.listed != epoch){
+				component.listed = epoch;
+				components[comps++] = component;
+				frontier += component.cells.length;
+			}
+		}
+		Arrays.fill(components, comps, listed, null);
+		for (int d=0; d<droppedCount; d++){
+			Component component = dropped[d];
+			if (owner[component.cells[0]] != component){
+				cache.remove(component.key);
+			}
+			dropped[d] = null;
+		}
+		for (int m=0; m<missCount; m++){
+			cache.put(misses[m].key, misses[m]);
+			misses[m] = null;
+		}
+		componentCount = comps;
+		cacheHits = comps - missCount;
+
+		combine(game.mineLeft(), unknown - frontier);
+	}
+
+	/**
+	 * The method that reports the mine probability of a cell, as of the last compute().
+	 * @param row row index
+	 * @param col column index
+	 * @return probability from 0 to 1; -1 for an invalid cell
+	 */
+	public double probability(int row, int col){
+		if (row < 0 || col < 0 || row >= rows || col >= cols){
+			return -1;
+		}
+		int idx = row*cols + col;
+		if (owner[idx] != null){
+			return probability[idx];
+		}
+		if ((seenVisible[idx>>>6] & (1L<<idx)) != 0){
+			return 0;
+		}
+		if ((seenFlagged[idx>>>6] & (1L<<idx)) != 0){
+			return 1;
+		}
+		return offProbability;
+	}
+
+	/**
+	 * The method that picks the hidden, unflagged cell least likely to have a mine,
+	 * as of the last compute().
+	 * @param random breaks ties between equally safe cells; null takes the first one
+	 * @return flat index (row x cols + col) of the cell; -1 if there is none
+	 */
+	public int bestGuess(Random random){
+		int best = -1;
+		double bestProbability = 2;
+		int ties = 0;
+		int size = rows*cols;
+		for (int w=0; w<seenVisible.length; w++){
+			//hidden, unflagged cells, 64 at a time
+			for (long hidden = ~(seenVisible[w] | seenFlagged[w]); hidden != 0; hidden &= hidden-1){
+				int idx = (w << 6) + Long.numberOfTrailingZeros(hidden);
+				if (idx >= size){
+					break;
+				}
+				double p = owner[idx] != null ? probability[idx] : offProbability;
+				//NaN means the counts contradict the flags; such cells come last
+				p = Double.isNaN(p) ? 1 : p;
+				//a cell with p == 0 is certainly safe: it is never tied with an almost safe one
+				if (p < bestProbability - TIE || (p == 0 && bestProbability > 0)){
+					best = idx;
+					bestProbability = p;
+					ties = 1;
+				}
+				else if ((bestProbability == 0 ? p == 0 : p <= bestProbability + TIE) && random != null
+						&& random.nextInt(++ties) == 0){
+					//reservoir sampling among the ties
+					best = idx;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * The method that reports the number of frontier components of the last compute().
+	 * @return number of components
+	 */
+	public int componentCount(){ return componentCount; }
+
+	/**
+	 * The method that reports how many components of the last compute() kept their
+	 * result, i.e. were away from the changes or rebuilt with the same signature.
+	 * @return number of components not enumerated again
+	 */
+	public int cacheHits(){ return cacheHits; }
+
+	//drop the components with a cell up to two steps from idx, and make the hidden cells there seeds
+	private void markAround(int idx){
+		int row = idx / cols;
+		int col = idx % cols;
+		for (int r=Math.max(0, row-2); r<=Math.min(rows-1, row+2); r++){
+			for (int c=Math.max(0, col-2); c<=Math.min(cols-1, col+2); c++){
+				int cell = r*cols + c;
+				if (owner[cell] != null){
+					drop(owner[cell]);
+				}
+				if (stamp[cell] != epoch){
+					stamp[cell] = epoch;
+					addSeed(cell);
+				}
+			}
+		}
+	}
+
+	//forget a component; its cells are rebuilt from
+	private void drop(Component component){
+		for (int cell : component.cells){
+			owner[cell] = null;
+			addSeed(cell);
+		}
+		if (droppedCount == dropped.length){
+			dropped = Arrays.copyOf(dropped, droppedCount*2);
+		}
+		dropped[droppedCount++] = component;
+	}
+
+	private void addSeed(int cell){
+		if (seedCount == seeds.length){
+			seeds = Arrays.copyOf(seeds, seedCount*2);
+		}
+		seeds[seedCount++] = cell;
+	}
+
+	//gather the component of a hidden cell into cells and its constraints (revealed
+	//counts) into cons, breadth first; return the number of cells (consCount is set)
+	private int collect(BoardSnapshot view, int start){
+		int cellCount = 0;
+		consCount = 0;
+		stamp[start] = epoch;
+		cells[cellCount++] = start;
+		for (int head=0; head<cellCount; head++){
+			int row = cells[head] / cols;
+			int col = cells[head] % cols;
+			for (int r=Math.max(0, row-1); r<=Math.min(rows-1, row+1); r++){
+				for (int c=Math.max(0, col-1); c<=Math.min(cols-1, col+1); c++){
+					int constraint = r*cols + c;
+					if (stamp[constraint] == epoch || !view.isVisible(constraint) || view.getCount(constraint) <= 0){
+						continue;
+					}
+					stamp[constraint] = epoch;
+					cons[consCount++] = constraint;
+					for (int i=Math.max(0, r-1); i<=Math.min(rows-1, r+1); i++){
+						for (int j=Math.max(0, c-1); j<=Math.min(cols-1, c+1); j++){
+							int cell = i*cols + j;
+							if (stamp[cell] != epoch && !view.isVisible(cell) && !view.isFlagged(cell)){
+								if (owner[cell] != null){
+									drop(owner[cell]); //joined by a new constraint
+								}
+								stamp[cell] = epoch;
+								cells[cellCount++] = cell;
+							}
+						}
+					}
+				}
+			}
+		}
+		return cellCount;
+	}
+
+	//weigh every total by the ways to place the rest off the frontier, and turn the
+	//solution counts of the components into probabilities
+	private void combine(int mineLeft, int offFrontier){
+		int comps = componentCount;
+		if (prefix.length < comps+1){
+			prefix = Arrays.copyOf(prefix, 2*(comps+1));
+			suffix = Arrays.copyOf(suffix, 2*(comps+1));
+			prefixLength = Arrays.copyOf(prefixLength, 2*(comps+1));
+			suffixLength = Arrays.copyOf(suffixLength, 2*(comps+1));
+		}
+
+		//prefix[c] / suffix[c]: mine count distribution of components before c / from c on
+		prefix[0] = fit(prefix[0], 1);
+		prefix[0][0] = 1;
+		prefixLength[0] = 1;
+		suffix[comps] = fit(suffix[comps], 1);
+		suffix[comps][0] = 1;
+		suffixLength[comps] = 1;
+		for (int c=0; c<comps; c++){
+			double[] solutions = components[c].solutions;
+			int length = convolvedLength(prefixLength[c], solutions.length, mineLeft);
+			prefix[c+1] = fit(prefix[c+1], length);
+			convolve(prefix[c], prefixLength[c], solutions, solutions.length, prefix[c+1], length);
+			prefixLength[c+1] = length;
+		}
+		for (int c=comps-1; c>=0; c--){
+			double[] solutions = components[c].solutions;
+			int length = convolvedLength(solutions.length, suffixLength[c+1], mineLeft);
+			suffix[c] = fit(suffix[c], length);
+			convolve(solutions, solutions.length, suffix[c+1], suffixLength[c+1], suffix[c], length);
+			suffixLength[c] = length;
+		}
+		int maxFrontier = prefixLength[comps] - 1;
+		weights(offFrontier, mineLeft, maxFrontier);
+
+		for (int c=0; c<comps; c++){
+			Component component = components[c];
+			int otherLength = convolvedLength(prefixLength[c], suffixLength[c+1], mineLeft);
+			others = fit(others, otherLength);
+			convolve(prefix[c], prefixLength[c], suffix[c+1], suffixLength[c+1], others, otherLength);
+			//g[m]: weight of every way to complete the board with m mines in this component
+			int gLength = component.solutions.length;
+			g = fit(g, gLength);
+			double total = 0;
+			for (int m=0; m<gLength; m++){
+				g[m] = 0;
+				for (int t=0; t<otherLength && m+t <= maxFrontier; t++){
+					g[m] += others[t] * weight[m+t];
+				}
+				total += component.solutions[m] * g[m];
+			}
+			for (int i=0; i<component.cells.length; i++){
+				double p = 0;
+				for (int m=0; m<gLength; m++){
+					p += component.cellMines[m][i] * g[m];
+				}
+				probability[component.cells[i]] = total > 0 ? p / total : Double.NaN;
+			}
+		}
+
+		//cells off the frontier share the mines left over evenly
+		double expected = 0;
+		double total = 0;
+		double[] all = prefix[comps];
+		for (int t=0; t<=maxFrontier; t++){
+			expected += all[t] * weight[t] * (mineLeft - t);
+			total += all[t] * weight[t];
+		}
+		offProbability = offFrontier > 0 && total > 0 ? expected / total / offFrontier : Double.NaN;
+	}
+
+	//weight[t] is proportional to C(offFrontier, mineLeft - t), for t = 0..maxFrontier
+	private void weights(int offFrontier, int mineLeft, int maxFrontier){
+		logs = fit(logs, maxFrontier+1);
+		weight = fit(weight, maxFrontier+1);
+		double max = Double.NEGATIVE_INFINITY;
+		for (int t=0; t<=maxFrontier; t++){
+			int k = mineLeft - t;
+			logs[t] = k < 0 || k > offFrontier ? Double.NEGATIVE_INFINITY : logChoose(offFrontier, k);
+			max = Math.max(max, logs[t]);
+		}
+		for (int t=0; t<=maxFrontier; t++){
+			weight[t] = max == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logs[t] - max);
+		}
+	}
+
+	private static double logChoose(int n, int k){
+		k = Math.min(k, n-k);
+		double log = 0;
+		for (int i=0; i<k; i++){
+			log += Math.log((double)(n-i) / (k-i));
+		}
+		return log;
+	}
+
+	//a work array with room for length entries: the one given if it is large enough
+	private static double[] fit(double[] array, int length){
+		return array != null && array.length >= length ? array : new double[Math.max(length, 2*(array == null ? 0 : array.length))];
+	}
+
+	//length of the convolution of two distributions, cut at limit mines
+	private static int convolvedLength(int aLength, int bLength, int limit){
+		return Math.max(1, Math.min(aLength + bLength - 1, limit + 1));
+	}
+
+	//convolution of two mine count distributions into result, cut at length entries and
+	//scaled so the largest entry is 1 (only ratios matter, and this avoids overflow)
+	private static void convolve(double[] a, int aLength, double[] b, int bLength, double[] result, int length){
+		Arrays.fill(result, 0, length, 0);
+		for (int i=0; i<aLength && i<length; i++){
+			if (a[i] == 0){
+				continue;
+			}
+			for (int j=0; j<bLength && i+j<length; j++){
+				result[i+j] += a[i] * b[j];
+			}
+		}
+		double max = 0;
+		for (int t=0; t<length; t++){
+			max = Math.max(max, result[t]);
+		}
+		if (max > 0){
+			for (int t=0; t<length; t++){
+				result[t] /= max;
+			}
+		}
+	}
+
+	//signature of the component in cells and cons: its cells, then each constraint with the mines it still needs
+	private Key key(int cellCount, int consCount){
+		int[] data = new int[cellCount + 2*consCount];
+		int n = 0;
+		for (int i=0; i<cellCount; i++){
+			data[n++] = cells[i];
+		}
+		for (int i=0; i<consCount; i++){
+			data[n++] = ~cons[i]; //negative, so cells and constraints can't be confused
+			data[n++] = need(cons[i]);
+		}
+		return new Key(data);
+	}
+
+	private int need(int idx){
+		int row = idx / cols;
+		int col = idx % cols;
+		int flags = 0;
+		for (int i=-1; i<=1; i++){
+			for (int j=-1; j<=1; j++){
+				if ((i != 0 || j != 0) && game.isFlagged(row+i, col+j)){
+					flags++;
+				}
+			}
+		}
+		return game.getCount(row, col) - flags;
+	}
+
+
+	/**
+	 * Hashable signature of a component.
+	 */
+	private static final class Key{
+		private final int[] data;
+		private final int hash;
+
+		Key(int[] data){
+			this.data = data;
+			this.hash = Arrays.hashCode(data);
+		}
+
+		@Override
+		public int hashCode(){ return hash; }
+
+		@Override
+		public boolean equals(Object other){
+			return other instanceof Key && Arrays.equals(data, ((Key)other).data);
+		}
+	}
+
+	/**
+	 * One frontier component and the result of enumerating it.
+	 * The result is scaled so the largest solution count is 1.
+	 */
+	private final class Component{
+		/**
+		 * Flat indexes of the cells, reordered for the search.
+		 */
+		private final int[] cells;
+
+		/**
+		 * Signature of the component.
+		 */
+		private final Key key;
+
+		/**
+		 * Pass of compute() that last listed this component (see epoch).
+		 */
+		private int listed;
+
+		/**
+		 * Constraint data: mines still needed and cells not yet assigned, per constraint.
+		 */
+		private final int[] needs, open;
+
+		/**
+		 * Constraints (positions in needs) that see each cell.
+		 */
+		private final int[][] cellCons;
+
+		/**
+		 * Per constraint: position of its first and last cell in the search order.
+		 */
+		private final int[] first, last;
+
+		/**
+		 * openAfter[i][j]: cells of constraint cellCons[i][j] after position i.
+		 */
+		private final int[][] openAfter;
+
+		/**
+		 * active[i]: constraints open between positions i-1 and i (seen on both sides), in order.
+		 */
+		private final int[][] active;
+
+		/**
+		 * Largest active[i].length.
+		 */
+		private final int width;
+
+		/**
+		 * solutions[m]: number of solutions with m mines in this component.
+		 */
+		private double[] solutions;
+
+		/**
+		 * cellMines[m][i]: number of those solutions with a mine on cells[i].
+		 */
+		private double[][] cellMines;
+
+		/**
+		 * Search state: positions of the cells that are mines in the current assignment.
+		 */
+		private final int[] mines;
+
+		Component(int[] componentCells, int[] constraints, Key key){
+			int n = componentCells.length;
+			this.key = key;
+			needs = new int[constraints.length];
+			open = new int[constraints.length];
+			mines = new int[n];
+
+			//constraints of each cell
+			int[][] consCells = new int[constraints.length][];
+			for (int k=0; k<constraints.length; k++){
+				needs[k] = need(constraints[k]);
+				consCells[k] = seen(constraints[k], componentCells);
+				open[k] = consCells[k].length;
+			}
+
+			//search order: breadth first through shared constraints, so constraints close early
+			cells = new int[n];
+			int[] position = new int[n];
+			Arrays.fill(position, -1);
+			boolean[] consDone = new boolean[constraints.length];
+			int[][] consOf = consOf(consCells, n);
+			int head = 0;
+			int tail = 0;
+			for (int start=0; start<n; start++){
+				if (position[start] >= 0){
+					continue;
+				}
+				position[start] = tail;
+				cells[tail++] = start;
+				while (head < tail){
+					int cell = cells[head++];
+					for (int k : consOf[cell]){
+						if (consDone[k]){
+							continue;
+						}
+						consDone[k] = true;
+						for (int other : consCells[k]){
+							if (position[other] < 0){
+								position[other] = tail;
+								cells[tail++] = other;
+							}
+						}
+					}
+				}
+			}
+			cellCons = new int[n][];
+			for (int i=0; i<n; i++){
+				cellCons[i] = consOf[cells[i]];
+				cells[i] = componentCells[cells[i]];
+			}
+
+			//where each constraint opens and closes in that order, for counting by state
+			first = new int[constraints.length];
+			last = new int[constraints.length];
+			Arrays.fill(first, n);
+			Arrays.fill(last, -1);
+			for (int i=0; i<n; i++){
+				for (int k : cellCons[i]){
+					first[k] = Math.min(first[k], i);
+					last[k] = Math.max(last[k], i);
+				}
+			}
+			openAfter = new int[n][];
+			int[] left = open.clone();
+			int[] activeCount = new int[n+1];
+			for (int i=0; i<n; i++){
+				openAfter[i] = new int[cellCons[i].length];
+				for (int j=0; j<cellCons[i].length; j++){
+					openAfter[i][j] = --left[cellCons[i][j]];
+				}
+			}
+			for (int k=0; k<constraints.length; k++){
+				for (int i=first[k]+1; i<=last[k]; i++){
+					activeCount[i]++;
+				}
+			}
+			active = new int[n+1][];
+			int widest = 0;
+			for (int i=0; i<=n; i++){
+				active[i] = new int[activeCount[i]];
+				widest = Math.max(widest, activeCount[i]);
+				activeCount[i] = 0;
+			}
+			for (int k=0; k<constraints.length; k++){
+				for (int i=first[k]+1; i<=last[k]; i++){
+					active[i][activeCount[i]++] = k;
+				}
+			}
+			width = widest;
+		}
+
+		//positions in componentCells (sorted) of the cells a constraint sees
+		private int[] seen(int constraint, int[] componentCells){
+			int row = constraint / cols;
+			int col = constraint % cols;
+			int[] result = new int[8];
+			int n = 0;
+			for (int i=-1; i<=1; i++){
+				for (int j=-1; j<=1; j++){
+					int r = row+i;
+					int c = col+j;
+					if ((i != 0 || j != 0) && r >= 0 && c >= 0 && r < rows && c < cols){
+						int pos = Arrays.binarySearch(componentCells, r*cols + c);
+						if (pos >= 0){
+							result[n++] = pos;
+						}
+					}
+				}
+			}
+			return Arrays.copyOf(result, n);
+		}
+
+		private int[][] consOf(int[][] consCells, int n){
+			int[] counts = new int[n];
+			for (int[] seen : consCells){
+				for (int cell : seen){
+					counts[cell]++;
+				}
+			}
+			int[][] result = new int[n][];
+			for (int i=0; i<n; i++){
+				result[i] = new int[counts[i]];
+				counts[i] = 0;
+			}
+			for (int k=0; k<consCells.length; k++){
+				for (int cell : consCells[k]){
+					result[cell][counts[cell]++] = k;
+				}
+			}
+			return result;
+		}
+
+		void solve(){
+			int n = cells.length;
+			solutions = new double[n+1];
+			cellMines = new double[n+1][n];
+			if (n <= ENUMERATE_CELLS || width > MAX_WIDTH){
+				enumerate(0, 0);
+			}
+			else {
+				countByState();
+			}
+
+			//keep only the mine counts that have solutions, scaled to avoid overflow
+			int maxMines = n;
+			while (maxMines > 0 && solutions[maxMines] == 0){
+				maxMines--;
+			}
+			solutions = Arrays.copyOf(solutions, maxMines+1);
+			cellMines = Arrays.copyOf(cellMines, maxMines+1);
+			double max = 0;
+			for (double s : solutions){
+				max = Math.max(max, s);
+			}
+			if (max > 1){
+				for (int m=0; m<=maxMines; m++){
+					solutions[m] /= max;
+					for (int i=0; i<n; i++){
+						cellMines[m][i] /= max;
+					}
+				}
+			}
+		}
+
+		//assign cells from position pos on, with count mines among the ones before
+		private void enumerate(int pos, int count){
+			if (pos == cells.length){
+				solutions[count]++;
+				double[] row = cellMines[count];
+				for (int k=0; k<count; k++){
+					row[mines[k]]++;
+				}
+				return;
+			}
+			int[] constraints = cellCons[pos];
+			boolean canBeSafe = true;
+			boolean canBeMine = true;
+			for (int k : constraints){
+				int need = needs[k];
+				int left = open[k]--;
+				//a need below 0 or above the open cells means the flags are wrong: no solution
+				if (need >= left || need < 0){
+					canBeSafe = false; //every open cell of k must be a mine
+				}
+				if (need <= 0 || need > left){
+					canBeMine = false;
+				}
+			}
+			if (canBeSafe){
+				enumerate(pos+1, count);
+			}
+			if (canBeMine){
+				mines[count] = pos;
+				for (int k : constraints){
+					needs[k]--;
+				}
+				enumerate(pos+1, count+1);
+				for (int k : constraints){
+					needs[k]++;
+				}
+			}
+			for (int k : constraints){
+				open[k]++;
+			}
+		}
+
+		//the same counts as enumerate(), by forward-backward over the search order: what
+		//the constraints open between two positions still need is all the cells after
+		//them depend on, so every such state is counted once instead of once per assignment
+		private void countByState(){
+			int n = cells.length;
+			States[] at = new States[n+1];
+			for (int i=0; i<=n; i++){
+				at[i] = new States();
+			}
+			int[] state = new int[needs.length];
+
+			//forward[s][a]: assignments of the cells before i that reach state s with a mines
+			at[0].add(0L, 1)[0] = 1;
+			for (int i=0; i<n; i++){
+				States from = at[i];
+				for (int s=0; s<from.size; s++){
+					decode(from.keys[s], i, state);
+					double[] reached = from.forward[s];
+					for (int x=0; x<=1; x++){
+						long key = step(state, i, x);
+						if (key < 0){
+							continue;
+						}
+						double[] next = at[i+1].add(key, i+2);
+						for (int a=0; a<=i; a++){
+							next[a+x] += reached[a];
+						}
+					}
+				}
+			}
+
+			//backward[s][b]: assignments of the cells from i on that complete state s with b mines
+			if (at[n].size == 0){
+				return; //no solution
+			}
+			at[n].backward[0] = new double[]{1};
+			for (int i=n-1; i>=0; i--){
+				States from = at[i];
+				for (int s=0; s<from.size; s++){
+					decode(from.keys[s], i, state);
+					double[] completed = new double[n-i+1];
+					double[] reached = from.forward[s];
+					for (int x=0; x<=1; x++){
+						long key = step(state, i, x);
+						int t = key < 0 ? -1 : at[i+1].find(key);
+						if (t < 0 || at[i+1].backward[t] == null){
+							continue;
+						}
+						double[] rest = at[i+1].backward[t];
+						for (int b=0; b<rest.length; b++){
+							completed[b+x] += rest[b];
+						}
+						if (x == 1){
+							for (int a=0; a<reached.length; a++){
+								if (reached[a] == 0){
+									continue;
+								}
+								for (int b=0; b<rest.length; b++){
+									cellMines[a+1+b][i] += reached[a] * rest[b];
+								}
+							}
+						}
+					}
+					from.backward[s] = completed;
+				}
+			}
+			System.arraycopy(at[0].backward[0], 0, solutions, 0, n+1);
+		}
+
+		//unpack the needs of the constraints open before position i into state
+		private void decode(long key, int i, int[] state){
+			int[] constraints = active[i];
+			for (int j=constraints.length-1; j>=0; j--){
+				state[constraints[j]] = (int)(key & 0xF);
+				key >>>= 4;
+			}
+		}
+
+		//the state before position i+1 when cell i is a mine (x = 1) or not, or -1 if
+		//that breaks a constraint; state is left as it was
+		private long step(int[] state, int i, int x){
+			int[] constraints = cellCons[i];
+			for (int j=0; j<constraints.length; j++){
+				int k = constraints[j];
+				int need = (first[k] == i ? needs[k] : state[k]) - x;
+				if (need < 0 || need > openAfter[i][j]){
+					return -1;
+				}
+			}
+			for (int k : constraints){
+				state[k] = (first[k] == i ? needs[k] : state[k]) - x;
+			}
+			long key = 0;
+			for (int k : active[i+1]){
+				key = key << 4 | state[k];
+			}
+			for (int k : constraints){
+				state[k] += x;
+			}
+			return key;
+		}
+	}
+
+	/**
+	 * The states between two positions of a search order, with their forward and backward
+	 * counts; an open-addressing table from key to slot.
+	 */
+	private static final class States{
+		private long[] keys = new long[4];
+		private double[][] forward = new double[4][], backward = new double[4][];
+		private int[] table = new int[8]; //slot+1 by hash, 0 if empty
+		private int size;
+
+		//slot of a key, -1 if absent
+		int find(long key){
+			int mask = table.length-1;
+			for (int h = hash(key) & mask; table[h] != 0; h = (h+1) & mask){
+				if (keys[table[h]-1] == key){
+					return table[h]-1;
+				}
+			}
+			return -1;
+		}
+
+		//forward counts of a key, added with room for length entries if absent
+		double[] add(long key, int length){
+			int slot = find(key);
+			if (slot >= 0){
+				return forward[slot];
+			}
+			if (size == keys.length){
+				keys = Arrays.copyOf(keys, size*2);
+				forward = Arrays.copyOf(forward, size*2);
+				backward = Arrays.copyOf(backward, size*2);
+				table = new int[size*4];
+				for (int s=0; s<size; s++){
+					insert(s);
+				}
+			}
+			keys[size] = key;
+			forward[size] = new double[length];
+			insert(size);
+			return forward[size++];
+		}
+
+		private void insert(int slot){
+			int mask = table.length-1;
+			int h = hash(keys[slot]) & mask;
+			while (table[h] != 0){
+				h = (h+1) & mask;
+			}
+			table[h] = slot+1;
+		}
+
+		private static int hash(long key){
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int)(h ^ (h >>> 32));
+		}
+	}
+}
@@ -0,0 +1,34 @@
+import java.util.Random;
+
+/**
+ * A strategy that clicks hidden cells in random order until the game is over.
+ * It never flags; it is the baseline other strategies are compared against.
+ */
+public class RandomStrategy implements PlayerStrategy{
+
+	/**
+	 * Cell indexes, shuffled a step at a time while playing (reused between games).
+	 */
+	private int[] order = new int[0];
+
+	@Override
+	public void play(MineSweeper game, Random random){
+		int cols = game.colCount();
+		int size = game.rowCount() * cols;
+		if (order.length != size){
+			order = new int[size];
+		}
+		for (int i = 0; i < size; i++){
+			order[i] = i;
+		}
+
+		//partial Fisher-Yates shuffle: draw the next cell only when it is needed
+		for (int i = 0; i < size && !game.isSolved() && !game.isExploded(); i++){
+			int j = i + random.nextInt(size - i);
+			int idx = order[j];
+			order[j] = order[i];
+			order[i] = idx;
+			game.clickAt(idx / cols, idx % cols); //-2 for cells already opened
+		}
+	}
+}
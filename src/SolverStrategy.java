@@ -0,0 +1,45 @@
+import java.util.Random;
+
+/**
+ * A strategy that opens the center cell, then plays every move AutoSolver can
+ * deduce, and whenever the solver is stuck clicks the cell ProbabilityEngine
+ * finds least likely to have a mine.
+ */
+public class SolverStrategy implements PlayerStrategy{
+
+	/**
+	 * Solver of the last game played (reused while the same game object is played).
+	 */
+	private AutoSolver solver;
+
+	/**
+	 * Probability engine of the same game.
+	 */
+	private ProbabilityEngine engine;
+
+	@Override
+	public void play(MineSweeper game, Random random){
+		if (solver == null || solver.getGame() != game){
+			solver = new AutoSolver(game);
+			engine = new ProbabilityEngine(game);
+		}
+		else {
+			solver.reset();
+		}
+
+		solver.clickAt(game.rowCount()/2, game.colCount()/2);
+		while (!game.isSolved() && !game.isExploded()){
+			solver.solve();
+			if (solver.needsGuess()){
+				guess(game, random);
+			}
+		}
+	}
+
+	//click the safest hidden, unflagged cell; ties are broken at random
+	private void guess(MineSweeper game, Random random){
+		engine.compute();
+		int idx = engine.bestGuess(random);
+		solver.clickAt(idx / game.colCount(), idx % game.colCount());
+	}
+}